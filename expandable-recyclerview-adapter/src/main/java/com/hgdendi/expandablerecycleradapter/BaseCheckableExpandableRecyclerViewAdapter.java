@@ -12,12 +12,21 @@
  */
 package com.hgdendi.expandablerecycleradapter;
 
+import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
 import android.view.View;
 
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public abstract class BaseCheckableExpandableRecyclerViewAdapter
@@ -29,12 +38,31 @@ public abstract class BaseCheckableExpandableRecyclerViewAdapter
 
     private static final String TAG = BaseCheckableExpandableRecyclerViewAdapter.class.getSimpleName();
 
+    private static final long NO_COORD = -1L;
+
+    private static final String STATE_CHECKED_GROUP_INDEXES = "BaseCheckableExpandableRecyclerViewAdapter:checkedGroupIndexes";
+    private static final String STATE_CHECKED_GROUP_IDS = "BaseCheckableExpandableRecyclerViewAdapter:checkedGroupIds";
+    private static final String STATE_CHECKED_GROUP_BITS = "BaseCheckableExpandableRecyclerViewAdapter:checkedGroupBits";
+    private static final String STATE_CHECKED_CHILD_WORDS = "BaseCheckableExpandableRecyclerViewAdapter:checkedChildWords";
+    private static final String STATE_CHECKED_CHILD_WORD_ENDS = "BaseCheckableExpandableRecyclerViewAdapter:checkedChildWordEnds";
+
     private final Object PAYLOAD_CHECKMODE = this;
     public static final int CHECK_MODE_NONE = 0;
     public static final int CHECK_MODE_PARTIAL = CHECK_MODE_NONE + 1;
     public static final int CHECK_MODE_ALL = CHECK_MODE_NONE + 2;
 
-    private final Set<CheckedItem<GroupBean, ChildBean>> mCheckedSet = new HashSet<>();
+    /**
+     * checked items keyed by group index , checked children are kept as bits of shown child index ,
+     * so that neither GroupBean nor ChildBean is hashed , and no object is allocated per checked item
+     */
+    private SparseArray<CheckedGroup> mCheckedGroups = new SparseArray<>();
+    private int mCheckedCount;
+    /**
+     * checked items not in the groups shown by {@link #filterGroups(List, GroupFilter)} ,
+     * they are not counted and are checked again once their groups and children are shown
+     */
+    private List<DetachedCheckedGroup<GroupBean, ChildBean>> mHiddenCheckedGroups = new ArrayList<>();
+    private final Set<CheckedItem<GroupBean, ChildBean>> mCheckedSetView = new CheckedSetView();
     private CheckStatusChangeListener<GroupBean, ChildBean> mOnCheckStatusChangeListener;
 
     /**
@@ -52,18 +80,48 @@ public abstract class BaseCheckableExpandableRecyclerViewAdapter
         registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
             @Override
             public void onChanged() {
+                if (isDispatchingExpandChange()) {
+                    return;
+                }
                 // after notifyDataSetChange(),clear outdated list
-                mCheckedSet.clear();
+                clearCheckedItems();
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                onRowsShifted();
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                onRowsShifted();
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                onRowsShifted();
             }
         });
     }
 
+    /**
+     * checked items are keyed by group index , which is unknown after rows are shifted by raw notifyItem*() of subclass
+     */
+    private void onRowsShifted() {
+        if (!isNotifyingRows()) {
+            clearCheckedItems();
+        }
+    }
+
+    /**
+     * @return view of checked items , whose elements are created while iterating
+     */
     public final Set<CheckedItem<GroupBean, ChildBean>> getCheckedSet() {
-        return mCheckedSet;
+        return mCheckedSetView;
     }
 
     public final int getSelectedCount() {
-        return mCheckedSet.size();
+        return mCheckedCount;
     }
 
     public final void setOnCheckStatusChangeListener(CheckStatusChangeListener<GroupBean, ChildBean> onCheckStatusChangeListener) {
@@ -71,63 +129,656 @@ public abstract class BaseCheckableExpandableRecyclerViewAdapter
     }
 
     public final void setCheckedSet(List<CheckedItem<GroupBean, ChildBean>> checkedSet) {
-        clearCheckedListAndUpdateUI();
         if (checkedSet == null || checkedSet.size() <= 0) {
+            clearCheckedListAndUpdateUI();
             return;
         }
+        final int[] originalGroupIndexes = getCheckedGroupIndexes();
+        clearCheckedItems();
+        // index children of each touched group once , instead of searching them for every item
+        final SparseArray<Map<ChildBean, Integer>> childIndexes = new SparseArray<>();
         for (CheckedItem<GroupBean, ChildBean> checkedItem : checkedSet) {
-            addToCheckedList(checkedItem);
+            if (mMaxCheckedNum == 1) {
+                // new choice overrides old choice
+                clearCheckedItems();
+            } else if (mMaxCheckedNum <= mCheckedCount) {
+                break;
+            }
+            final long coord = getCoordOfCheckedItem(checkedItem, childIndexes);
+            if (coord != NO_COORD) {
+                setItemChecked(getGroupIndexFromCoord(coord), getChildIndexFromCoord(coord), true);
+            }
+        }
+        final int[] currentGroupIndexes = getCheckedGroupIndexes();
+        final int[] groupIndexes = new int[originalGroupIndexes.length + currentGroupIndexes.length];
+        System.arraycopy(originalGroupIndexes, 0, groupIndexes, 0, originalGroupIndexes.length);
+        System.arraycopy(currentGroupIndexes, 0, groupIndexes, originalGroupIndexes.length, currentGroupIndexes.length);
+        notifyCheckModeChanged(groupIndexes);
+    }
+
+    /**
+     * check all items in linear time and update UI at once ,
+     * an unexpandable group is checked as an item , while an expandable group is checked by its children.
+     * <p>
+     * Stops when maxCheckedNum is reached , {@link CheckStatusChangeListener} is not called.
+     * Groups not loaded by {@link PagedGroupList} are skipped.
+     *
+     * @return num of newly checked items
+     */
+    public final int checkAll() {
+        final int originalCheckedCount = mCheckedCount;
+        final int groupCount = getGroupCount();
+        final int[] groupIndexes = new int[groupCount];
+        int changedGroupCount = 0;
+        for (int i = 0; i < groupCount && mCheckedCount < mMaxCheckedNum; i++) {
+            final GroupBean groupBean = getGroupItem(i);
+            if (groupBean == null) {
+                // placeholder of PagedGroupList
+                continue;
+            }
+            final int checkedCount = mCheckedCount;
+            if (groupBean.isExpandable()) {
+                checkChildren(i, getChildCount(i, groupBean), mMaxCheckedNum - mCheckedCount);
+            } else {
+                setItemChecked(i, -1, true);
+            }
+            if (mCheckedCount != checkedCount) {
+                groupIndexes[changedGroupCount++] = i;
+            }
+        }
+        notifyCheckModeChanged(Arrays.copyOf(groupIndexes, changedGroupCount));
+        return mCheckedCount - originalCheckedCount;
+    }
+
+    /**
+     * uncheck all items and update UI at once , {@link CheckStatusChangeListener} is not called
+     *
+     * @return num of unchecked items
+     */
+    public final int uncheckAll() {
+        final int originalCheckedCount = mCheckedCount;
+        clearCheckedListAndUpdateUI();
+        return originalCheckedCount;
+    }
+
+    /**
+     * invert check status of all items in linear time and update UI at once ,
+     * {@link CheckStatusChangeListener} is not called , groups not loaded by {@link PagedGroupList} are skipped
+     *
+     * @return false if items checked after inverting would exceed maxCheckedNum , in which case nothing changes
+     */
+    public final boolean invertSelection() {
+        final int groupCount = getGroupCount();
+        int itemCount = 0;
+        for (int i = 0; i < groupCount; i++) {
+            final GroupBean groupBean = getGroupItem(i);
+            if (groupBean != null) {
+                itemCount += groupBean.isExpandable() ? getChildCount(i, groupBean) : 1;
+            }
+        }
+        if (itemCount - mCheckedCount > mMaxCheckedNum) {
+            return false;
+        }
+        final SparseArray<CheckedGroup> checkedGroups = new SparseArray<>();
+        for (int i = 0; i < groupCount; i++) {
+            final GroupBean groupBean = getGroupItem(i);
+            if (groupBean == null) {
+                continue;
+            }
+            CheckedGroup checkedGroup = mCheckedGroups.get(i);
+            if (checkedGroup == null) {
+                checkedGroup = new CheckedGroup();
+            }
+            if (groupBean.isExpandable()) {
+                final int childCount = getChildCount(i, groupBean);
+                checkedGroup.mCheckedChildren.flip(0, childCount);
+                checkedGroup.mCheckedChildCount = childCount - checkedGroup.mCheckedChildCount;
+            } else {
+                checkedGroup.mIsGroupChecked = !checkedGroup.mIsGroupChecked;
+            }
+            if (!checkedGroup.isEmpty()) {
+                checkedGroups.append(i, checkedGroup);
+            }
+        }
+        mCheckedGroups = checkedGroups;
+        mCheckedCount = itemCount - mCheckedCount;
+        if (groupCount > 0) {
+            final int start = getAdapterPosition(0);
+            notifyItemRangeChanged(start, getItemCount() - start, PAYLOAD_CHECKMODE);
+        }
+        return true;
+    }
+
+    /**
+     * check unchecked children of a group in order
+     *
+     * @param groupIndex index of group
+     * @param childCount num of children
+     * @param quota      max num of children to check
+     */
+    private void checkChildren(int groupIndex, int childCount, int quota) {
+        final CheckedGroup checkedGroup = obtainCheckedGroup(groupIndex);
+        final int uncheckedCount = childCount - checkedGroup.mCheckedChildCount;
+        if (uncheckedCount <= quota) {
+            checkedGroup.mCheckedChildren.set(0, childCount);
+            checkedGroup.mCheckedChildCount = childCount;
+            mCheckedCount += uncheckedCount;
+            return;
+        }
+        final BitSet checkedChildren = checkedGroup.mCheckedChildren;
+        for (int i = checkedChildren.nextClearBit(0); quota > 0 && i < childCount; i = checkedChildren.nextClearBit(i + 1)) {
+            checkedChildren.set(i);
+            quota--;
+            checkedGroup.mCheckedChildCount++;
+            mCheckedCount++;
         }
     }
 
+    /**
+     * save check status besides expand status , checked groups are kept by id if all of them have {@link #getGroupId(BaseGroupBean)} ,
+     * otherwise by index , checked children are kept as bits of child index in GroupBean
+     */
     @Override
-    public void onBindGroupViewHolder(final GroupViewHolder groupViewHolder, final GroupBean groupBean, boolean isExpand) {
-        if (groupViewHolder.getCheckableRegion() != null) {
-            groupViewHolder.getCheckableRegion().setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View view) {
-                    onGroupChecked(
-                            groupBean,
-                            groupViewHolder,
-                            translateToDoubleIndex(groupViewHolder.getAdapterPosition())[0]);
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        int entryCount = 0;
+        int wordCount = 0;
+        for (int i = 0; i < mCheckedGroups.size(); i++) {
+            final CheckedGroup checkedGroup = mCheckedGroups.valueAt(i);
+            if (!checkedGroup.isEmpty()) {
+                entryCount++;
+                wordCount += (toGroupBeanChildBits(mCheckedGroups.keyAt(i), checkedGroup.mCheckedChildren).length() + 63) >>> 6;
+            }
+        }
+        final int[] groupIndexes = new int[entryCount];
+        long[] groupIds = isGroupPaged() ? null : new long[entryCount];
+        final BitSet groupBits = new BitSet(entryCount);
+        final long[] childWords = new long[wordCount];
+        final int[] childWordEnds = new int[entryCount];
+        int entry = 0;
+        int wordEnd = 0;
+        for (int i = 0; i < mCheckedGroups.size(); i++) {
+            final CheckedGroup checkedGroup = mCheckedGroups.valueAt(i);
+            if (checkedGroup.isEmpty()) {
+                continue;
+            }
+            final int groupIndex = mCheckedGroups.keyAt(i);
+            groupIndexes[entry] = groupIndex;
+            if (groupIds != null) {
+                final GroupBean groupBean = getGroupItem(groupIndex);
+                final long groupId = groupBean == null ? RecyclerView.NO_ID : getGroupId(groupBean);
+                if (groupId == RecyclerView.NO_ID) {
+                    groupIds = null;
+                } else {
+                    groupIds[entry] = groupId;
                 }
-            });
+            }
+            groupBits.set(entry, checkedGroup.mIsGroupChecked);
+            final long[] words = toGroupBeanChildBits(groupIndex, checkedGroup.mCheckedChildren).toLongArray();
+            System.arraycopy(words, 0, childWords, wordEnd, words.length);
+            wordEnd += words.length;
+            childWordEnds[entry] = wordEnd;
+            entry++;
+        }
+        if (groupIds != null) {
+            outState.putLongArray(STATE_CHECKED_GROUP_IDS, groupIds);
+        } else {
+            outState.putIntArray(STATE_CHECKED_GROUP_INDEXES, groupIndexes);
         }
+        outState.putLongArray(STATE_CHECKED_GROUP_BITS, groupBits.toLongArray());
+        outState.putLongArray(STATE_CHECKED_CHILD_WORDS, childWords);
+        outState.putIntArray(STATE_CHECKED_CHILD_WORD_ENDS, childWordEnds);
     }
 
+    /**
+     * restore check status besides expand status , should be called after groups are set.
+     * Checked children out of the current child count are dropped , including those of children not loaded by {@link ChildPageLoader}
+     */
     @Override
-    protected void onBindGroupViewHolder(GroupViewHolder groupViewHolder, GroupBean groupBean, boolean isExpand, List<Object> payload) {
-        if (payload != null && payload.size() != 0) {
-            if (payload.contains(PAYLOAD_CHECKMODE)) {
-                groupViewHolder.setCheckMode(getGroupCheckedMode(groupBean));
+    public void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
+        final long[] childWords = savedInstanceState.getLongArray(STATE_CHECKED_CHILD_WORDS);
+        final int[] childWordEnds = savedInstanceState.getIntArray(STATE_CHECKED_CHILD_WORD_ENDS);
+        final long[] groupBitWords = savedInstanceState.getLongArray(STATE_CHECKED_GROUP_BITS);
+        if (childWords != null && childWordEnds != null && groupBitWords != null) {
+            final int[] groupIndexes = getSavedCheckedGroupIndexes(savedInstanceState, childWordEnds.length);
+            final BitSet groupBits = BitSet.valueOf(groupBitWords);
+            final SparseArray<CheckedGroup> checkedGroups = new SparseArray<>();
+            final int groupCount = getGroupCount();
+            for (int entry = 0; entry < groupIndexes.length; entry++) {
+                final int groupIndex = groupIndexes[entry];
+                final GroupBean groupBean = groupIndex >= 0 && groupIndex < groupCount ? getGroupItem(groupIndex) : null;
+                if (groupBean == null) {
+                    continue;
+                }
+                final CheckedGroup checkedGroup = new CheckedGroup();
+                if (groupBean.isExpandable()) {
+                    final int wordStart = entry == 0 ? 0 : childWordEnds[entry - 1];
+                    checkedGroup.mCheckedChildren = toShownChildBits(groupIndex,
+                            BitSet.valueOf(Arrays.copyOfRange(childWords, wordStart, childWordEnds[entry])));
+                    checkedGroup.mCheckedChildCount = checkedGroup.mCheckedChildren.cardinality();
+                    trimCheckedChildren(checkedGroup, getChildCount(groupIndex, groupBean));
+                } else {
+                    checkedGroup.mIsGroupChecked = groupBits.get(entry);
+                }
+                if (!checkedGroup.isEmpty()) {
+                    checkedGroups.put(groupIndex, checkedGroup);
+                }
+            }
+            setCheckedGroups(checkedGroups);
+        }
+        // check mode of groups is rebound by the full refresh of super
+        super.onRestoreInstanceState(savedInstanceState);
+    }
+
+    /**
+     * @param checkedChildren bits of shown child index
+     * @return bits of child index in GroupBean , children are saved in the order of GroupBean as sorting is not saved
+     */
+    private BitSet toGroupBeanChildBits(int groupIndex, BitSet checkedChildren) {
+        final int[] childOrder = getChildOrder(groupIndex);
+        if (childOrder == null) {
+            return checkedChildren;
+        }
+        final BitSet result = new BitSet(childOrder.length);
+        for (int i = checkedChildren.nextSetBit(0); i >= 0 && i < childOrder.length; i = checkedChildren.nextSetBit(i + 1)) {
+            result.set(childOrder[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @param checkedChildren bits of child index in GroupBean
+     * @return bits of shown child index
+     */
+    private BitSet toShownChildBits(int groupIndex, BitSet checkedChildren) {
+        final int[] childOrder = getChildOrder(groupIndex);
+        if (childOrder == null) {
+            return checkedChildren;
+        }
+        final BitSet result = new BitSet(childOrder.length);
+        for (int i = 0; i < childOrder.length; i++) {
+            result.set(i, checkedChildren.get(childOrder[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @return current index of saved checked groups , -1 for groups no longer exist
+     */
+    private int[] getSavedCheckedGroupIndexes(Bundle savedInstanceState, int entryCount) {
+        final long[] groupIds = savedInstanceState.getLongArray(STATE_CHECKED_GROUP_IDS);
+        if (groupIds == null) {
+            final int[] groupIndexes = savedInstanceState.getIntArray(STATE_CHECKED_GROUP_INDEXES);
+            return groupIndexes != null && groupIndexes.length == entryCount ? groupIndexes : new int[0];
+        }
+        return findGroupIndexes(groupIds);
+    }
+
+    /**
+     * find current groups by id in O(n log k) , without boxing
+     *
+     * @param groupIds ids of groups , {@link RecyclerView#NO_ID} for groups not to find
+     * @return current index of group with each id , -1 if not found
+     */
+    private int[] findGroupIndexes(long[] groupIds) {
+        final int[] result = new int[groupIds.length];
+        Arrays.fill(result, -1);
+        // ids are in [0, 0x7FFFFFFF] , pack id with entry so that entries can be searched by id
+        final long[] sortedEntries = new long[groupIds.length];
+        int entryCount = 0;
+        for (int i = 0; i < groupIds.length; i++) {
+            if (groupIds[i] != RecyclerView.NO_ID) {
+                sortedEntries[entryCount++] = groupIds[i] << 32 | i;
+            }
+        }
+        if (entryCount == 0) {
+            return result;
+        }
+        Arrays.sort(sortedEntries, 0, entryCount);
+        final int groupCount = getGroupCount();
+        for (int i = 0; i < groupCount; i++) {
+            final GroupBean groupBean = getGroupItem(i);
+            final long groupId = groupBean == null ? RecyclerView.NO_ID : getGroupId(groupBean);
+            if (groupId == RecyclerView.NO_ID) {
+                continue;
+            }
+            final int found = Arrays.binarySearch(sortedEntries, 0, entryCount, groupId << 32);
+            // entries of the same id are adjacent
+            for (int j = found >= 0 ? found : -found - 1; j < entryCount && sortedEntries[j] >>> 32 == groupId; j++) {
+                result[(int) sortedEntries[j]] = i;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    void onGroupsReplaced(List<GroupBean> oldGroups) {
+        // move checked items to groups with the same id , or equal groups without id , and to equal children ,
+        // items not in the new groups are kept hidden while filtering , otherwise dropped
+        final SparseArray<CheckedGroup> checkedGroups = new SparseArray<>();
+        final List<DetachedCheckedGroup<GroupBean, ChildBean>> detachedGroups = mHiddenCheckedGroups;
+        mHiddenCheckedGroups = new ArrayList<>();
+        for (int i = 0; i < mCheckedGroups.size(); i++) {
+            final int oldGroupIndex = mCheckedGroups.keyAt(i);
+            final CheckedGroup checkedGroup = mCheckedGroups.valueAt(i);
+            if (checkedGroup.isEmpty() || oldGroupIndex >= oldGroups.size()) {
+                continue;
+            }
+            final GroupBean oldGroup = oldGroups.get(oldGroupIndex);
+            if (isChildPaged()) {
+                // children are loaded again for new groups , their check status can not be kept
+                checkedGroup.mCheckedChildren.clear();
+                checkedGroup.mCheckedChildCount = 0;
+                if (checkedGroup.isEmpty()) {
+                    continue;
+                }
+            }
+            final int groupIndex = getGroupIndex(oldGroup);
+            if (groupIndex >= 0 && getGroupItem(groupIndex) == oldGroup) {
+                // the same group , its child indexes are kept
+                trimCheckedChildren(checkedGroup, oldGroup.getChildCount());
+                if (!checkedGroup.isEmpty()) {
+                    checkedGroups.put(groupIndex, checkedGroup);
+                }
+            } else {
+                detachedGroups.add(detachCheckedGroup(oldGroup, checkedGroup));
+            }
+        }
+        attachCheckedGroups(detachedGroups, checkedGroups);
+        setCheckedGroups(checkedGroups);
+    }
+
+    private DetachedCheckedGroup<GroupBean, ChildBean> detachCheckedGroup(GroupBean groupBean, CheckedGroup checkedGroup) {
+        final DetachedCheckedGroup<GroupBean, ChildBean> result = new DetachedCheckedGroup<>(groupBean, checkedGroup.mIsGroupChecked);
+        final List<ChildBean> children = groupBean.getChildren();
+        final BitSet checkedChildren = checkedGroup.mCheckedChildren;
+        for (int i = checkedChildren.nextSetBit(0); i >= 0 && i < children.size(); i = checkedChildren.nextSetBit(i + 1)) {
+            result.mCheckedChildren.add(children.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * check detached items again in current groups
+     *
+     * @param detachedGroups checked items to attach
+     * @param checkedGroups  checked items of current groups to merge into
+     */
+    private void attachCheckedGroups(List<DetachedCheckedGroup<GroupBean, ChildBean>> detachedGroups, SparseArray<CheckedGroup> checkedGroups) {
+        if (detachedGroups.isEmpty()) {
+            return;
+        }
+        final boolean isHiddenKept = isFiltering();
+        final long[] groupIds = new long[detachedGroups.size()];
+        for (int i = 0; i < groupIds.length; i++) {
+            groupIds[i] = getGroupId(detachedGroups.get(i).mGroupBean);
+        }
+        final int[] groupIndexes = findGroupIndexes(groupIds);
+        final SparseArray<Map<ChildBean, Integer>> childIndexes = new SparseArray<>();
+        for (int i = 0; i < groupIndexes.length; i++) {
+            final DetachedCheckedGroup<GroupBean, ChildBean> detachedGroup = detachedGroups.get(i);
+            final int groupIndex = groupIds[i] != RecyclerView.NO_ID ? groupIndexes[i] : getGroupIndex(detachedGroup.mGroupBean);
+            if (groupIndex < 0) {
+                if (isHiddenKept) {
+                    mHiddenCheckedGroups.add(detachedGroup);
+                }
+                continue;
+            }
+            final GroupBean groupBean = getGroupItem(groupIndex);
+            CheckedGroup checkedGroup = checkedGroups.get(groupIndex);
+            if (checkedGroup == null) {
+                checkedGroup = new CheckedGroup();
+                checkedGroups.put(groupIndex, checkedGroup);
+            }
+            checkedGroup.mIsGroupChecked |= detachedGroup.mIsGroupChecked;
+            final DetachedCheckedGroup<GroupBean, ChildBean> hiddenGroup = new DetachedCheckedGroup<>(detachedGroup.mGroupBean, false);
+            if (!detachedGroup.mCheckedChildren.isEmpty()) {
+                Map<ChildBean, Integer> indexes = childIndexes.get(groupIndex);
+                if (indexes == null) {
+                    indexes = indexChildren(groupIndex, groupBean);
+                    childIndexes.put(groupIndex, indexes);
+                }
+                for (ChildBean childBean : detachedGroup.mCheckedChildren) {
+                    final Integer childIndex = indexes.get(childBean);
+                    if (childIndex != null) {
+                        checkedGroup.mCheckedChildren.set(childIndex);
+                    } else {
+                        hiddenGroup.mCheckedChildren.add(childBean);
+                    }
+                }
+                checkedGroup.mCheckedChildCount = checkedGroup.mCheckedChildren.cardinality();
             }
+            if (checkedGroup.isEmpty()) {
+                checkedGroups.remove(groupIndex);
+            }
+            if (isHiddenKept && !hiddenGroup.mCheckedChildren.isEmpty()) {
+                mHiddenCheckedGroups.add(hiddenGroup);
+            }
+        }
+    }
+
+    @Override
+    boolean canEvictGroups(int groupIndexStart, int groupCount) {
+        if (!super.canEvictGroups(groupIndexStart, groupCount)) {
+            return false;
+        }
+        // checked items are materialized from loaded groups , find the first checked group not before groupIndexStart
+        int low = 0;
+        int high = mCheckedGroups.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (mCheckedGroups.keyAt(mid) < groupIndexStart) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < mCheckedGroups.size() && mCheckedGroups.keyAt(i) < groupIndexStart + groupCount; i++) {
+            if (!mCheckedGroups.valueAt(i).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    boolean canEvictChildPage(int groupIndex) {
+        // checked children are materialized from loaded pages
+        final CheckedGroup checkedGroup = mCheckedGroups.get(groupIndex);
+        return checkedGroup == null || checkedGroup.mCheckedChildCount == 0;
+    }
+
+    @Override
+    void onGroupChildrenReplaced(int groupIndex, List<ChildBean> oldChildren) {
+        final CheckedGroup checkedGroup = mCheckedGroups.get(groupIndex);
+        if (checkedGroup == null) {
             return;
         }
+        final int originalSize = checkedGroup.size();
+        remapCheckedChildren(checkedGroup, oldChildren, groupIndex, getGroupItem(groupIndex));
+        mCheckedCount += checkedGroup.size() - originalSize;
+    }
 
-        onBindGroupViewHolder(groupViewHolder, groupBean, isExpand);
+    @Override
+    void onGroupChildrenPermuted(int groupIndex, int[] order) {
+        final CheckedGroup checkedGroup = mCheckedGroups.get(groupIndex);
+        if (checkedGroup == null || checkedGroup.mCheckedChildCount == 0) {
+            return;
+        }
+        final BitSet oldCheckedChildren = checkedGroup.mCheckedChildren;
+        final BitSet checkedChildren = new BitSet(order.length);
+        for (int i = 0; i < order.length; i++) {
+            if (oldCheckedChildren.get(order[i])) {
+                checkedChildren.set(i);
+            }
+        }
+        checkedGroup.mCheckedChildren = checkedChildren;
+    }
+
+    @Override
+    void onGroupsPermuted(int[] groupIndexes) {
+        mCheckedGroups = permuteKeys(mCheckedGroups, groupIndexes);
+    }
+
+    @Override
+    void onGroupRangeInserted(int groupIndexStart, int groupCount) {
+        shiftCheckedGroups(groupIndexStart, 0, groupCount);
+    }
+
+    @Override
+    void onGroupRangeRemoved(int groupIndexStart, int groupCount) {
+        shiftCheckedGroups(groupIndexStart, groupCount, -groupCount);
+    }
+
+    @Override
+    void onChildRangeInserted(int groupIndex, int childIndexStart, int childCount) {
+        final CheckedGroup checkedGroup = mCheckedGroups.get(groupIndex);
+        if (checkedGroup != null) {
+            insertBits(checkedGroup.mCheckedChildren, childIndexStart, childCount);
+        }
+    }
+
+    @Override
+    void onChildRangeRemoved(int groupIndex, int childIndexStart, int childCount) {
+        final CheckedGroup checkedGroup = mCheckedGroups.get(groupIndex);
+        if (checkedGroup != null) {
+            final int removedCount = checkedGroup.mCheckedChildren.get(childIndexStart, childIndexStart + childCount).cardinality();
+            removeBits(checkedGroup.mCheckedChildren, childIndexStart, childCount);
+            checkedGroup.mCheckedChildCount -= removedCount;
+            mCheckedCount -= removedCount;
+        }
+    }
+
+    /**
+     * move checked groups at and after groupIndexStart by offset ,
+     * and drop checked groups in [groupIndexStart, groupIndexStart + removedCount)
+     */
+    private void shiftCheckedGroups(int groupIndexStart, int removedCount, int offset) {
+        final SparseArray<CheckedGroup> checkedGroups = new SparseArray<>(mCheckedGroups.size());
+        for (int i = 0; i < mCheckedGroups.size(); i++) {
+            final int groupIndex = mCheckedGroups.keyAt(i);
+            final CheckedGroup checkedGroup = mCheckedGroups.valueAt(i);
+            if (checkedGroup.isEmpty() || groupIndex >= groupIndexStart && groupIndex < groupIndexStart + removedCount) {
+                continue;
+            }
+            checkedGroups.append(groupIndex < groupIndexStart ? groupIndex : groupIndex + offset, checkedGroup);
+        }
+        setCheckedGroups(checkedGroups);
+    }
+
+    private void setCheckedGroups(SparseArray<CheckedGroup> checkedGroups) {
+        mCheckedGroups = checkedGroups;
+        mCheckedCount = 0;
+        for (int i = 0; i < checkedGroups.size(); i++) {
+            mCheckedCount += checkedGroups.valueAt(i).size();
+        }
+    }
+
+    /**
+     * move checked children to the index of equal children in groupBean
+     *
+     * @param checkedGroup checked children to remap
+     * @param oldChildren  children which checkedGroup refers to
+     * @param groupIndex   index of group with new children
+     * @param groupBean    group with new children
+     */
+    private void remapCheckedChildren(CheckedGroup checkedGroup, List<ChildBean> oldChildren, int groupIndex, GroupBean groupBean) {
+        if (checkedGroup.mCheckedChildCount == 0) {
+            return;
+        }
+        final Map<ChildBean, Integer> childIndexes = indexChildren(groupIndex, groupBean);
+        final BitSet oldCheckedChildren = checkedGroup.mCheckedChildren;
+        final BitSet checkedChildren = new BitSet();
+        for (int i = oldCheckedChildren.nextSetBit(0); i >= 0 && i < oldChildren.size(); i = oldCheckedChildren.nextSetBit(i + 1)) {
+            final Integer childIndex = childIndexes.get(oldChildren.get(i));
+            if (childIndex != null) {
+                checkedChildren.set(childIndex);
+            }
+        }
+        checkedGroup.mCheckedChildren = checkedChildren;
+        checkedGroup.mCheckedChildCount = checkedChildren.cardinality();
+    }
+
+    /**
+     * drop checked children whose index is out of range
+     */
+    private static void trimCheckedChildren(CheckedGroup checkedGroup, int childCount) {
+        final BitSet checkedChildren = checkedGroup.mCheckedChildren;
+        if (checkedChildren.length() > childCount) {
+            checkedChildren.clear(childCount, checkedChildren.length());
+            checkedGroup.mCheckedChildCount = checkedChildren.cardinality();
+        }
+    }
+
+    /**
+     * @return child -> index of child in groupBean , equal children are mapped to the first index
+     */
+    private Map<ChildBean, Integer> indexChildren(int groupIndex, GroupBean groupBean) {
+        final int childCount = getChildCount(groupIndex, groupBean);
+        final Map<ChildBean, Integer> result = new HashMap<>(childCount * 2);
+        for (int i = childCount - 1; i >= 0; i--) {
+            result.put(getChildItem(groupBean, groupIndex, i), i);
+        }
+        return result;
+    }
+
+    @Override
+    void onGroupViewHolderCreated(final GroupViewHolder holder) {
+        super.onGroupViewHolderCreated(holder);
+        if (holder.getCheckableRegion() != null) {
+            holder.getCheckableRegion().setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    onGroupChecked(
+                            holder,
+                            getGroupIndexFromCoord(translateToCoord(holder.getAdapterPosition())));
+                }
+            });
+        }
     }
 
     @Override
-    public void onBindChildViewHolder(final ChildViewHolder holder, final GroupBean groupBean, final ChildBean childBean) {
-        holder.setCheckMode(getChildCheckedMode(childBean));
+    void onChildViewHolderCreated(final ChildViewHolder holder) {
+        super.onChildViewHolderCreated(holder);
         if (holder.getCheckableRegion() != null) {
             holder.getCheckableRegion().setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
                     onChildChecked(
                             holder,
-                            groupBean,
-                            childBean);
+                            translateToCoord(holder.getAdapterPosition()));
                 }
             });
         }
     }
 
+    @Override
+    public void onBindGroupViewHolder(GroupViewHolder groupViewHolder, GroupBean groupBean, boolean isExpand) {
+        groupViewHolder.setCheckMode(getGroupCheckedMode(getGroupIndex(groupBean)));
+    }
+
+    @Override
+    protected void onBindGroupViewHolder(GroupViewHolder groupViewHolder, GroupBean groupBean, boolean isExpand, List<Object> payload) {
+        if (payload != null && payload.size() != 0) {
+            if (payload.contains(PAYLOAD_CHECKMODE)) {
+                groupViewHolder.setCheckMode(getGroupCheckedMode(getGroupIndex(groupBean)));
+            }
+            return;
+        }
+
+        onBindGroupViewHolder(groupViewHolder, groupBean, isExpand);
+    }
+
+    @Override
+    public void onBindChildViewHolder(ChildViewHolder holder, GroupBean groupBean, ChildBean childBean) {
+        holder.setCheckMode(getChildCheckedMode(groupBean, childBean));
+    }
+
     @Override
     protected void onBindChildViewHolder(ChildViewHolder holder, GroupBean groupBean, ChildBean childBean, List<Object> payload) {
         if (payload != null && payload.size() != 0) {
             if (payload.contains(PAYLOAD_CHECKMODE)) {
-                holder.setCheckMode(getChildCheckedMode(childBean));
+                holder.setCheckMode(getChildCheckedMode(groupBean, childBean));
             }
             return;
         }
@@ -135,32 +786,24 @@ public abstract class BaseCheckableExpandableRecyclerViewAdapter
     }
 
     @Override
-    protected void bindChildViewHolder(final ChildViewHolder holder, final GroupBean groupBean, final ChildBean childBean, List<Object> payload) {
+    protected void bindChildViewHolder(ChildViewHolder holder, GroupBean groupBean, ChildBean childBean, List<Object> payload) {
         super.bindChildViewHolder(holder, groupBean, childBean, payload);
-        holder.setCheckMode(getChildCheckedMode(childBean));
-        if (holder.getCheckableRegion() != null) {
-            holder.getCheckableRegion().setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View view) {
-                    onChildChecked(holder, groupBean, childBean);
-                }
-            });
-        }
+        holder.setCheckMode(getChildCheckedMode(groupBean, childBean));
     }
 
-    private int getGroupCheckedMode(GroupBean groupBean) {
+    private int getGroupCheckedMode(int groupIndex) {
+        final CheckedGroup checkedGroup = groupIndex >= 0 ? mCheckedGroups.get(groupIndex) : null;
+        if (checkedGroup == null) {
+            return CHECK_MODE_NONE;
+        }
+        final GroupBean groupBean = getGroupItem(groupIndex);
         if (!groupBean.isExpandable()) {
-            return isItemSelected(groupBean) ? CHECK_MODE_ALL : CHECK_MODE_NONE;
+            return checkedGroup.mIsGroupChecked ? CHECK_MODE_ALL : CHECK_MODE_NONE;
         } else {
-            int checkedCount = 0;
-            for (ChildBean childBean : groupBean.getChildren()) {
-                if (isItemSelected(childBean)) {
-                    checkedCount++;
-                }
-            }
+            final int checkedCount = checkedGroup.mCheckedChildCount;
             if (checkedCount == 0) {
                 return CHECK_MODE_NONE;
-            } else if (checkedCount == groupBean.getChildCount()) {
+            } else if (checkedCount >= getChildCount(groupIndex, groupBean)) {
                 return CHECK_MODE_ALL;
             } else {
                 return CHECK_MODE_PARTIAL;
@@ -168,12 +811,25 @@ public abstract class BaseCheckableExpandableRecyclerViewAdapter
         }
     }
 
-    private int getChildCheckedMode(ChildBean childBean) {
-        return isItemSelected(childBean) ? CHECK_MODE_ALL : CHECK_MODE_NONE;
+    private int getChildCheckedMode(int groupIndex, int childIndex) {
+        return childIndex >= 0 && isItemChecked(groupIndex, childIndex) ? CHECK_MODE_ALL : CHECK_MODE_NONE;
     }
 
-    private void onGroupChecked(GroupBean groupBean, GroupViewHolder holder, int groupIndex) {
-        int checkedMode = getGroupCheckedMode(groupBean);
+    private int getChildCheckedMode(GroupBean groupBean, ChildBean childBean) {
+        final int groupIndex = getGroupIndex(groupBean);
+        return groupIndex < 0 ? CHECK_MODE_NONE : getChildCheckedMode(groupIndex, getChildIndex(groupIndex, childBean));
+    }
+
+    private void onGroupChecked(GroupViewHolder holder, int groupIndex) {
+        if (groupIndex < 0) {
+            return;
+        }
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        if (groupBean == null) {
+            // evicted by PagedGroupList , the holder is rebound as placeholder
+            return;
+        }
+        int checkedMode = getGroupCheckedMode(groupIndex);
         if (groupBean.isExpandable()) {
             switch (checkedMode) {
                 case CHECK_MODE_NONE:
@@ -186,73 +842,84 @@ public abstract class BaseCheckableExpandableRecyclerViewAdapter
                     break;
             }
         } else {
-            if (isItemSelected(groupBean)) {
+            if (isItemChecked(groupIndex, -1)) {
                 if (!onInterceptGroupCheckStatusChanged(groupBean, false)
-                        && removeFromCheckedList(groupBean)) {
-                    holder.setCheckMode(getGroupCheckedMode(groupBean));
+                        && removeFromCheckedList(groupIndex, -1)) {
+                    holder.setCheckMode(getGroupCheckedMode(groupIndex));
                 }
             } else {
                 if (!onInterceptGroupCheckStatusChanged(groupBean, true)
-                        && addToCheckedList(groupBean)) {
-                    holder.setCheckMode(getGroupCheckedMode(groupBean));
+                        && addToCheckedList(groupIndex, -1)) {
+                    holder.setCheckMode(getGroupCheckedMode(groupIndex));
                 }
             }
         }
     }
 
     private void selectAllInGroup(GroupViewHolder holder, GroupBean groupBean, int groupIndex, boolean selectAll) {
-        if (selectAll && !isGroupExpanding(groupBean)) {
-            expandGroup(groupBean);
+        if (selectAll && !isGroupExpanding(groupIndex)) {
+            expandGroup(groupIndex);
         }
-        final List<ChildBean> children = groupBean.getChildren();
+        final int childCount = getChildCount(groupIndex, groupBean);
+        // children not revealed yet are bound with the latest check mode later
+        final int shownChildCount = getShownChildCount(groupIndex, groupBean);
         final int groupAdapterPosition = holder.getAdapterPosition();
-        final int originalGroupCheckedMode = getGroupCheckedMode(groupBean);
-        for (int i = 0; i < children.size(); i++) {
-            ChildBean childBean = children.get(i);
+        final int originalGroupCheckedMode = getGroupCheckedMode(groupIndex);
+        // children of folded group are not shown , no need to notify
+        final PayloadRangeNotifier notifier = isGroupExpanding(groupIndex)
+                ? new PayloadRangeNotifier(this, PAYLOAD_CHECKMODE) : null;
+        for (int i = 0; i < childCount; i++) {
+            if (isItemChecked(groupIndex, i) == selectAll) {
+                continue;
+            }
+            final ChildBean childBean = getChildItem(groupBean, groupIndex, i);
+            final boolean changed;
             if (selectAll) {
-                if (isItemSelected(childBean)) {
-                    continue;
-                }
-                if (!onInterceptChildCheckStatusChanged(groupBean, childBean, true)) {
-                    addToCheckedList(groupBean, childBean);
-                    notifyItemChanged(groupAdapterPosition + i + 1, PAYLOAD_CHECKMODE);
-                }
+                changed = !onInterceptChildCheckStatusChanged(groupBean, childBean, true)
+                        && addToCheckedList(groupIndex, i);
             } else {
-                if (!isItemSelected(childBean)) {
-                    continue;
-                }
-                if (!onInterceptChildCheckStatusChanged(groupBean, childBean, false)
-                        && removeFromCheckedList(groupBean, childBean)) {
-                    notifyItemChanged(groupAdapterPosition + i + 1, PAYLOAD_CHECKMODE);
-                }
+                changed = !onInterceptChildCheckStatusChanged(groupBean, childBean, false)
+                        && removeFromCheckedList(groupIndex, i);
             }
-
+            if (changed && notifier != null && i < shownChildCount) {
+                notifier.add(groupAdapterPosition + i + 1);
+            }
+        }
+        if (notifier != null) {
+            notifier.flush();
         }
-        final int currentGroupCheckedMode = getGroupCheckedMode(groupBean);
+        final int currentGroupCheckedMode = getGroupCheckedMode(groupIndex);
         if (currentGroupCheckedMode != originalGroupCheckedMode) {
             holder.setCheckMode(currentGroupCheckedMode);
         }
     }
 
-    private void onChildChecked(ChildViewHolder holder, GroupBean groupBean, ChildBean childBean) {
-        final int originalGroupMode = getGroupCheckedMode(groupBean);
+    private void onChildChecked(ChildViewHolder holder, long coord) {
+        final int groupIndex = getGroupIndexFromCoord(coord);
+        final int childIndex = getChildIndexFromCoord(coord);
+        if (groupIndex < 0 || childIndex < 0) {
+            return;
+        }
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        final ChildBean childBean = getChildItem(groupBean, groupIndex, childIndex);
+        final int originalGroupMode = getGroupCheckedMode(groupIndex);
         boolean changeFlag = false;
-        if (getChildCheckedMode(childBean) == CHECK_MODE_ALL) {
+        if (isItemChecked(groupIndex, childIndex)) {
             if (!onInterceptChildCheckStatusChanged(groupBean, childBean, false)
-                    && removeFromCheckedList(groupBean, childBean)) {
-                holder.setCheckMode(getChildCheckedMode(childBean));
+                    && removeFromCheckedList(groupIndex, childIndex)) {
+                holder.setCheckMode(getChildCheckedMode(groupIndex, childIndex));
                 changeFlag = true;
             }
         } else {
             if (!onInterceptChildCheckStatusChanged(groupBean, childBean, true)
-                    && addToCheckedList(groupBean, childBean)) {
-                holder.setCheckMode(getChildCheckedMode(childBean));
+                    && addToCheckedList(groupIndex, childIndex)) {
+                holder.setCheckMode(getChildCheckedMode(groupIndex, childIndex));
                 changeFlag = true;
             }
         }
 
-        if (changeFlag && getGroupCheckedMode(groupBean) != originalGroupMode) {
-            notifyItemChanged(getAdapterPosition(getGroupIndex(groupBean)), PAYLOAD_CHECKMODE);
+        if (changeFlag && getGroupCheckedMode(groupIndex) != originalGroupMode) {
+            notifyItemChanged(getAdapterPosition(groupIndex), PAYLOAD_CHECKMODE);
         }
     }
 
@@ -266,79 +933,297 @@ public abstract class BaseCheckableExpandableRecyclerViewAdapter
                 && mOnCheckStatusChangeListener.onInterceptChildCheckStatusChange(groupBean, childBean, targetStatus);
     }
 
-    private boolean isItemSelected(GroupBean groupBean) {
-        for (CheckedItem checkedItem : mCheckedSet) {
-            if (checkedItem.getCheckedItem().equals(groupBean)) {
-                return true;
-            }
+    /**
+     * @param groupIndex index of group
+     * @param childIndex index of child , -1 for the group itself
+     * @return whether the item is checked
+     */
+    private boolean isItemChecked(int groupIndex, int childIndex) {
+        final CheckedGroup checkedGroup = mCheckedGroups.get(groupIndex);
+        if (checkedGroup == null) {
+            return false;
         }
-        return false;
+        return childIndex < 0 ? checkedGroup.mIsGroupChecked : checkedGroup.mCheckedChildren.get(childIndex);
     }
 
-    private boolean isItemSelected(ChildBean childBean) {
-        for (CheckedItem checkedItem : mCheckedSet) {
-            if (checkedItem.getCheckedItem().equals(childBean)) {
-                return true;
+    /**
+     * @param groupIndex index of group
+     * @param childIndex index of child , -1 for the group itself
+     * @param checked    target check status
+     * @return whether the check status changed
+     */
+    private boolean setItemChecked(int groupIndex, int childIndex, boolean checked) {
+        final CheckedGroup checkedGroup = checked ? obtainCheckedGroup(groupIndex) : mCheckedGroups.get(groupIndex);
+        if (checkedGroup == null) {
+            return false;
+        }
+        if (childIndex < 0) {
+            if (checkedGroup.mIsGroupChecked == checked) {
+                return false;
+            }
+            checkedGroup.mIsGroupChecked = checked;
+        } else {
+            if (checkedGroup.mCheckedChildren.get(childIndex) == checked) {
+                return false;
             }
+            checkedGroup.mCheckedChildren.set(childIndex, checked);
+            checkedGroup.mCheckedChildCount += checked ? 1 : -1;
         }
-        return false;
+        // empty CheckedGroup is kept , so that iterating mCheckedGroups is not broken , it is dropped on next shift
+        mCheckedCount += checked ? 1 : -1;
+        return true;
     }
 
-    private boolean addToCheckedList(GroupBean groupBean) {
-        return addToCheckedList(groupBean, null);
+    private CheckedGroup obtainCheckedGroup(int groupIndex) {
+        CheckedGroup checkedGroup = mCheckedGroups.get(groupIndex);
+        if (checkedGroup == null) {
+            checkedGroup = new CheckedGroup();
+            mCheckedGroups.put(groupIndex, checkedGroup);
+        }
+        return checkedGroup;
     }
 
-    private boolean addToCheckedList(GroupBean groupBean, ChildBean childBean) {
-        return addToCheckedList(new CheckedItem<>(groupBean, childBean));
+    /**
+     * @param checkedItem  checked item
+     * @param childIndexes cache of {@link #indexChildren(int, CheckableGroupItem)} keyed by group index , nullable
+     * @return coord of checkedItem , or NO_COORD if it is not in the current groups
+     */
+    private long getCoordOfCheckedItem(CheckedItem<GroupBean, ChildBean> checkedItem, SparseArray<Map<ChildBean, Integer>> childIndexes) {
+        if (checkedItem.groupItem == null) {
+            return NO_COORD;
+        }
+        final int groupIndex = getGroupIndex(checkedItem.groupItem);
+        if (groupIndex < 0) {
+            return NO_COORD;
+        }
+        if (checkedItem.childItem == null) {
+            return packCoord(groupIndex, -1);
+        }
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        final int childIndex;
+        if (childIndexes == null) {
+            childIndex = getChildIndex(groupIndex, checkedItem.childItem);
+        } else {
+            Map<ChildBean, Integer> indexes = childIndexes.get(groupIndex);
+            if (indexes == null) {
+                indexes = indexChildren(groupIndex, groupBean);
+                childIndexes.put(groupIndex, indexes);
+            }
+            final Integer index = indexes.get(checkedItem.childItem);
+            childIndex = index == null ? -1 : index;
+        }
+        return childIndex < 0 ? NO_COORD : packCoord(groupIndex, childIndex);
     }
 
-    private boolean addToCheckedList(CheckedItem<GroupBean, ChildBean> checkedItem) {
+    private boolean addToCheckedList(int groupIndex, int childIndex) {
         if (mMaxCheckedNum == 1) {
             clearCheckedListAndUpdateUI();
-        } else if (mMaxCheckedNum <= mCheckedSet.size()) {
+        } else if (mMaxCheckedNum <= mCheckedCount) {
             return false;
         }
-        return mCheckedSet.add(checkedItem);
+        return setItemChecked(groupIndex, childIndex, true);
+    }
+
+    private boolean removeFromCheckedList(int groupIndex, int childIndex) {
+        return setItemChecked(groupIndex, childIndex, false);
+    }
+
+    private void clearCheckedItems() {
+        mCheckedGroups.clear();
+        mCheckedCount = 0;
+        mHiddenCheckedGroups.clear();
     }
 
     private void clearCheckedListAndUpdateUI() {
-        Iterator<CheckedItem<GroupBean, ChildBean>> iter = mCheckedSet.iterator();
-        while (iter.hasNext()) {
-            final CheckedItem<GroupBean, ChildBean> checkedItem = iter.next();
-            final int[] coord = getCoordFromCheckedItem(checkedItem);
-            final GroupBean groupBean = getGroupItem(coord[0]);
-            final int originalGroupCheckedStatus = getGroupCheckedMode(groupBean);
-            iter.remove();
-            final int groupAdapterPosition = getAdapterPosition(coord[0]);
-            final int adapterPosition = groupAdapterPosition + coord[1] + 1;
-            notifyItemChanged(adapterPosition, PAYLOAD_CHECKMODE);
-            final int currentGroupCheckedStatus = getGroupCheckedMode(groupBean);
-            if (coord[1] >= 0 && currentGroupCheckedStatus != originalGroupCheckedStatus) {
-                notifyItemChanged(groupAdapterPosition, PAYLOAD_CHECKMODE);
-            }
-        }
-    }
-
-    private int[] getCoordFromCheckedItem(CheckedItem<GroupBean, ChildBean> checkedItem) {
-        int[] result = new int[]{-1, -1};
-        for (int i = 0; i < getGroupCount(); i++) {
-            if (getGroupItem(i).equals(checkedItem.groupItem)) {
-                result[0] = i;
-                break;
+        if (mCheckedCount == 0) {
+            return;
+        }
+        final int[] groupIndexes = getCheckedGroupIndexes();
+        clearCheckedItems();
+        notifyCheckModeChanged(groupIndexes);
+    }
+
+    /**
+     * @return index of groups with checked items , in ascending order
+     */
+    private int[] getCheckedGroupIndexes() {
+        final int[] result = new int[mCheckedGroups.size()];
+        int count = 0;
+        for (int i = 0; i < mCheckedGroups.size(); i++) {
+            if (!mCheckedGroups.valueAt(i).isEmpty()) {
+                result[count++] = mCheckedGroups.keyAt(i);
             }
         }
-        if (checkedItem.childItem != null) {
-            result[1] = getGroupItem(result[0]).getChildren().indexOf(checkedItem.childItem);
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * notify check mode change of groups in as few range notifications as possible ,
+     * only the group item is notified if the group is folded
+     *
+     * @param groupIndexes index of changed groups , may contain duplicates and invalid index
+     */
+    private void notifyCheckModeChanged(int[] groupIndexes) {
+        Arrays.sort(groupIndexes);
+        final int groupCount = getGroupCount();
+        final PayloadRangeNotifier notifier = new PayloadRangeNotifier(this, PAYLOAD_CHECKMODE);
+        int lastGroupIndex = -1;
+        for (int groupIndex : groupIndexes) {
+            if (groupIndex < 0 || groupIndex >= groupCount || groupIndex == lastGroupIndex) {
+                continue;
+            }
+            lastGroupIndex = groupIndex;
+            notifier.addRange(getAdapterPosition(groupIndex), getGroupRowCount(groupIndex));
+        }
+        notifier.flush();
+    }
+
+    /**
+     * checked items of a group kept by beans instead of indexes , while the group is not shown or replaced
+     */
+    private static final class DetachedCheckedGroup<GroupBean, ChildBean> {
+        final GroupBean mGroupBean;
+        boolean mIsGroupChecked;
+        final List<ChildBean> mCheckedChildren = new ArrayList<>();
+
+        DetachedCheckedGroup(GroupBean groupBean, boolean isGroupChecked) {
+            mGroupBean = groupBean;
+            mIsGroupChecked = isGroupChecked;
         }
-        return result;
     }
 
-    private boolean removeFromCheckedList(GroupBean groupBean) {
-        return removeFromCheckedList(groupBean, null);
+    /**
+     * checked items of a group
+     */
+    private static final class CheckedGroup {
+        /**
+         * whether the group itself is checked , only for unexpandable group
+         */
+        boolean mIsGroupChecked;
+        /**
+         * bits of checked child index
+         */
+        BitSet mCheckedChildren = new BitSet();
+        /**
+         * cardinality of mCheckedChildren
+         */
+        int mCheckedChildCount;
+
+        boolean isEmpty() {
+            return !mIsGroupChecked && mCheckedChildCount == 0;
+        }
+
+        int size() {
+            return mIsGroupChecked ? mCheckedChildCount + 1 : mCheckedChildCount;
+        }
     }
 
-    private boolean removeFromCheckedList(GroupBean groupBean, ChildBean childBean) {
-        return mCheckedSet.remove(new CheckedItem<>(groupBean, childBean));
+    /**
+     * view of checked items returned by {@link #getCheckedSet()} ,
+     * {@link CheckedItem} is created for each element while iterating
+     */
+    private class CheckedSetView extends AbstractSet<CheckedItem<GroupBean, ChildBean>> {
+
+        @Override
+        public Iterator<CheckedItem<GroupBean, ChildBean>> iterator() {
+            return new Iterator<CheckedItem<GroupBean, ChildBean>>() {
+                /**
+                 * index in mCheckedGroups
+                 */
+                private int mPosition;
+                /**
+                 * child index to search from , -1 before the group itself is visited
+                 */
+                private int mChildCursor = -1;
+                private long mNextCoord = NO_COORD;
+                private long mCurrentCoord = NO_COORD;
+
+                @Override
+                public boolean hasNext() {
+                    if (mNextCoord != NO_COORD) {
+                        return true;
+                    }
+                    while (mPosition < mCheckedGroups.size()) {
+                        final int groupIndex = mCheckedGroups.keyAt(mPosition);
+                        final CheckedGroup checkedGroup = mCheckedGroups.valueAt(mPosition);
+                        if (mChildCursor < 0) {
+                            mChildCursor = 0;
+                            if (checkedGroup.mIsGroupChecked) {
+                                mNextCoord = packCoord(groupIndex, -1);
+                                return true;
+                            }
+                        }
+                        final int childIndex = checkedGroup.mCheckedChildren.nextSetBit(mChildCursor);
+                        if (childIndex >= 0) {
+                            mChildCursor = childIndex + 1;
+                            mNextCoord = packCoord(groupIndex, childIndex);
+                            return true;
+                        }
+                        mPosition++;
+                        mChildCursor = -1;
+                    }
+                    return false;
+                }
+
+                @Override
+                public CheckedItem<GroupBean, ChildBean> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    mCurrentCoord = mNextCoord;
+                    mNextCoord = NO_COORD;
+                    final int groupIndex = getGroupIndexFromCoord(mCurrentCoord);
+                    final GroupBean groupBean = getGroupItem(groupIndex);
+                    final int childIndex = getChildIndexFromCoord(mCurrentCoord);
+                    return new CheckedItem<>(groupBean, childIndex < 0 ? null : getChildItem(groupBean, groupIndex, childIndex));
+                }
+
+                @Override
+                public void remove() {
+                    if (mCurrentCoord == NO_COORD) {
+                        throw new IllegalStateException();
+                    }
+                    setItemChecked(getGroupIndexFromCoord(mCurrentCoord), getChildIndexFromCoord(mCurrentCoord), false);
+                    mCurrentCoord = NO_COORD;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return mCheckedCount;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            if (!(o instanceof CheckedItem)) {
+                return false;
+            }
+            final long coord = getCoordOfCheckedItem((CheckedItem<GroupBean, ChildBean>) o, null);
+            return coord != NO_COORD && isItemChecked(getGroupIndexFromCoord(coord), getChildIndexFromCoord(coord));
+        }
+
+        @Override
+        public boolean add(CheckedItem<GroupBean, ChildBean> checkedItem) {
+            final long coord = getCoordOfCheckedItem(checkedItem, null);
+            return coord != NO_COORD && setItemChecked(getGroupIndexFromCoord(coord), getChildIndexFromCoord(coord), true);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            if (!(o instanceof CheckedItem)) {
+                return false;
+            }
+            final long coord = getCoordOfCheckedItem((CheckedItem<GroupBean, ChildBean>) o, null);
+            return coord != NO_COORD && setItemChecked(getGroupIndexFromCoord(coord), getChildIndexFromCoord(coord), false);
+        }
+
+        @Override
+        public void clear() {
+            clearCheckedItems();
+        }
     }
 
     public abstract static class BaseCheckableGroupViewHolder extends BaseGroupViewHolder implements Selectable {
@@ -13,18 +13,35 @@
 
 package com.hgdendi.expandablerecycleradapter;
 
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.View;
 import android.view.ViewGroup;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 
 public abstract class BaseExpandableRecyclerViewAdapter
@@ -38,39 +55,335 @@ public abstract class BaseExpandableRecyclerViewAdapter
 
     private static final Object EXPAND_PAYLOAD = new Object();
 
+    /**
+     * coord of positions not related to any group , equals to packCoord(-1, -1)
+     */
+    private static final long NO_COORD = -1L;
+
+    private static final int DEFAULT_BATCH_NOTIFY_THRESHOLD = 100;
+    private static final long DEFAULT_CHILD_PAGE_EVICT_DELAY = 30 * 1000;
+
+    private static final String STATE_EXPAND_GROUP_IDS = "BaseExpandableRecyclerViewAdapter:expandGroupIds";
+    private static final String STATE_EXPAND_GROUP_BITS = "BaseExpandableRecyclerViewAdapter:expandGroupBits";
+
+    /**
+     * item ids of header and empty view ,
+     * never conflict with combined ids of groups , whose low 32 bits are always 0 ,
+     * nor combined ids of children , whose highest bit is always 1
+     */
+    private static final long ITEM_ID_HEADER = 1L;
+    private static final long ITEM_ID_EMPTY = 2L;
+    /**
+     * low 32 bits of item id of a group placeholder , combined with the group index
+     */
+    private static final long ITEM_ID_GROUP_PLACEHOLDER = 3L;
+    /**
+     * low 32 bits of item id of the footer row of a group , combined with the group id
+     */
+    private static final long ITEM_ID_GROUP_FOOTER = 0xFFFFFFFFL;
+
     private static final int TYPE_EMPTY = ViewProducer.VIEW_TYPE_EMPTY;
     private static final int TYPE_HEADER = ViewProducer.VIEW_TYPE_HEADER;
     private static final int TYPE_GROUP = ViewProducer.VIEW_TYPE_EMPTY >> 2;
     private static final int TYPE_CHILD = ViewProducer.VIEW_TYPE_EMPTY >> 3;
-    private static final int TYPE_MASK = TYPE_GROUP | TYPE_CHILD | TYPE_EMPTY | TYPE_HEADER;
+    private static final int TYPE_LOADING = ViewProducer.VIEW_TYPE_EMPTY >> 4;
+    private static final int TYPE_PLACEHOLDER = ViewProducer.VIEW_TYPE_EMPTY >> 5;
+    private static final int TYPE_SHOW_MORE = ViewProducer.VIEW_TYPE_EMPTY >> 6;
+    private static final int TYPE_MASK = TYPE_GROUP | TYPE_CHILD | TYPE_EMPTY | TYPE_HEADER
+            | TYPE_LOADING | TYPE_PLACEHOLDER | TYPE_SHOW_MORE;
 
-    private Set<GroupBean> mExpandGroupSet;
+    private static final int FOOTER_NONE = 0;
+    private static final int FOOTER_LOADING = 1;
+    private static final int FOOTER_SHOW_MORE = 2;
+
+    /**
+     * expand status keyed by group index , so that checking it never touches GroupBean.equals()/hashCode()
+     */
+    private BitSet mExpandGroupBits = new BitSet();
+    /**
+     * ids from {@link #getGroupId(BaseGroupBean)} of expanding groups , only used to keep expand status across
+     * notifyDataSetChanged() and submitGroups() , groups without id keep expand status by index in mExpandGroupBits
+     */
+    private final LongHashSet mExpandGroupIds = new LongHashSet();
+    /**
+     * index of the group last bound or clicked , checked by identity before looking up the group-index map
+     */
+    private int mGroupIndexHint = -1;
+    /**
+     * index of the child last bound , checked by identity before searching the children
+     */
+    private int mChildIndexHint = -1;
+    private final GroupPositionIndex mPositionIndex = new GroupPositionIndex();
+    private boolean mPositionIndexDirty = true;
+    private final Map<GroupBean, Integer> mGroupIndexMap = new HashMap<>();
+    private boolean mGroupIndexMapDirty = true;
+    /**
+     * whether the group-index map is rebuilt since groups last changed , a lookup missing the map rebuilds it once otherwise
+     */
+    private boolean mGroupIndexMapVerified;
     private ExpandableRecyclerViewOnClickListener<GroupBean, ChildBean> mListener;
 
     private boolean mIsEmpty;
+    private boolean mDebugEnabled;
+    private int mBatchNotifyThreshold = DEFAULT_BATCH_NOTIFY_THRESHOLD;
+    private boolean mIsDispatchingExpandChange;
+    /**
+     * depth of rows inserted , removed or moved by the adapter itself , whose bookkeeping is synced before notifying
+     */
+    private int mNotifyingRowsDepth;
+    /**
+     * increased on every change of the shown item list , used to detect outdated diff result
+     */
+    private int mStructureVersion;
+    /**
+     * increased on every submit , also read on background thread to cancel outdated filtering
+     */
+    private volatile int mSubmitGeneration;
+    /**
+     * increased when groups are replaced , used to detect outdated child diff result
+     */
+    private int mDataSetVersion;
+    /**
+     * increased on every child submit or sort , latest generation of each group is kept in mChildSubmitGenerations
+     */
+    private int mChildSubmitGeneration;
+    private final Map<GroupBean, Integer> mChildSubmitGenerations = new HashMap<>();
+    private Executor mBackgroundExecutor;
+    /**
+     * expand status of user before filtering , restored when the filter is cleared
+     */
+    private boolean mIsFiltering;
+    private LongHashSet mUnfilteredExpandGroupIds;
+    /**
+     * expanding groups without id before filtering , kept by identity
+     */
+    private Set<GroupBean> mUnfilteredExpandGroupBeans;
+
+    private static Executor sDefaultBackgroundExecutor;
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
     private boolean mShowHeaderViewWhenEmpty;
     private ViewProducer mEmptyViewProducer;
     private ViewProducer mHeaderViewProducer;
 
+    /**
+     * children loaded by {@link ChildPageLoader} keyed by group index
+     */
+    private final ChildPager<GroupBean, ChildBean> mChildPager = new ChildPager<>(new ChildPager.Callback<ChildBean>() {
+        @Override
+        public void onChildPageLoaded(int groupIndex, List<ChildBean> children, int pageSize) {
+            BaseExpandableRecyclerViewAdapter.this.onChildPageLoaded(groupIndex, children, pageSize);
+        }
+
+        @Override
+        public boolean canEvictChildPage(int groupIndex) {
+            return BaseExpandableRecyclerViewAdapter.this.canEvictChildPage(groupIndex);
+        }
+    }, DEFAULT_CHILD_PAGE_EVICT_DELAY);
+
+    /**
+     * num of revealed children of groups being expanded progressively
+     */
+    private final ChildRevealer mChildRevealer = new ChildRevealer(new Runnable() {
+        @Override
+        public void run() {
+            revealNextChildren();
+        }
+    });
+
+    private int mPreviewChildCount;
+    private int mShowMoreChildCount;
+    private ViewProducer mShowMoreViewProducer;
+    /**
+     * num of children allowed to show of groups whose "show more" row is clicked , keyed by group index ,
+     * other groups show mPreviewChildCount children at most
+     */
+    private SparseIntArray mPreviewChildCounts = new SparseIntArray();
+    /**
+     * order of shown children of groups sorted by {@link #sortChildren(BaseGroupBean, Comparator)} , keyed by group index ,
+     * index of child in GroupBean at each shown index , children of other groups are shown in the order of GroupBean
+     */
+    private SparseArray<int[]> mChildOrders = new SparseArray<>();
+
+    /**
+     * rows of shown groups for diffing , taken from the adapter on main thread
+     */
+    private final FlatGroupList.RowSource<GroupBean, ChildBean> mShownGroupRows = new FlatGroupList.RowSource<GroupBean, ChildBean>() {
+        @Override
+        public int getShownChildCount(int groupIndex, GroupBean groupBean) {
+            return BaseExpandableRecyclerViewAdapter.this.getShownChildCount(groupIndex, groupBean);
+        }
+
+        @Override
+        public boolean hasFooter(int groupIndex, GroupBean groupBean) {
+            return getFooterType(groupIndex) != FOOTER_NONE;
+        }
+
+        @Override
+        public ChildBean getShownChild(int groupIndex, GroupBean groupBean, int childIndex) {
+            return getChildItem(groupBean, groupIndex, childIndex);
+        }
+    };
+    private final FlatGroupList.ItemCallback<GroupBean, ChildBean> mItemCallback = new FlatGroupList.ItemCallback<GroupBean, ChildBean>() {
+        @Override
+        public boolean areGroupsTheSame(GroupBean oldGroup, GroupBean newGroup) {
+            return BaseExpandableRecyclerViewAdapter.this.areGroupsTheSame(oldGroup, newGroup);
+        }
+
+        @Override
+        public boolean areGroupContentsTheSame(GroupBean oldGroup, GroupBean newGroup) {
+            return BaseExpandableRecyclerViewAdapter.this.areGroupContentsTheSame(oldGroup, newGroup);
+        }
+
+        @Override
+        public boolean areChildrenTheSame(ChildBean oldChild, ChildBean newChild) {
+            return BaseExpandableRecyclerViewAdapter.this.areChildrenTheSame(oldChild, newChild);
+        }
+
+        @Override
+        public boolean areChildContentsTheSame(ChildBean oldChild, ChildBean newChild) {
+            return BaseExpandableRecyclerViewAdapter.this.areChildContentsTheSame(oldChild, newChild);
+        }
+    };
+
+    private PagedGroupList<GroupBean> mPagedGroupList;
+    private ViewProducer mPlaceholderViewProducer;
+    private final PagedGroupList.LoadCallback<GroupBean> mGroupPageLoadCallback = new PagedGroupList.LoadCallback<GroupBean>() {
+        @Override
+        public void onGroupPageLoaded(PagedGroupList<GroupBean> pagedGroupList, int pageIndex, int startIndex, List<GroupBean> groups) {
+            if (pagedGroupList == mPagedGroupList) {
+                BaseExpandableRecyclerViewAdapter.this.onGroupPageLoaded(pageIndex, startIndex, groups);
+            }
+        }
+    };
+    private final PagedGroupList.EvictPolicy mGroupPageEvictPolicy = new PagedGroupList.EvictPolicy() {
+        @Override
+        public boolean canEvictPage(int groupIndexStart, int groupCount) {
+            return canEvictGroups(groupIndexStart, groupCount);
+        }
+    };
+
     public BaseExpandableRecyclerViewAdapter() {
-        mExpandGroupSet = new HashSet<>();
         registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
             @Override
             public void onChanged() {
+                if (mIsDispatchingExpandChange) {
+                    // data set is untouched , position index is already marked dirty
+                    return;
+                }
                 // after notifyDataSetChange(),clear outdated list
-                List<GroupBean> retainItem = new ArrayList<>();
-                for (int i = 0; i < getGroupCount(); i++) {
-                    GroupBean groupBean = getGroupItem(i);
-                    if (mExpandGroupSet.contains(groupBean)) {
-                        retainItem.add(groupBean);
-                    }
+                onDataSetChanged();
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                // groups may be replaced in place
+                mGroupIndexMapVerified = false;
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                if (mNotifyingRowsDepth == 0) {
+                    onRawRowsInserted(positionStart, itemCount);
+                    onDataSetChanged();
+                }
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                if (mNotifyingRowsDepth == 0) {
+                    onRawRowsRemoved(positionStart, itemCount);
+                    onDataSetChanged();
+                }
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                if (mNotifyingRowsDepth == 0) {
+                    onRawRowMoved(fromPosition, toPosition);
+                    onDataSetChanged();
                 }
-                mExpandGroupSet.clear();
-                mExpandGroupSet.addAll(retainItem);
             }
         });
     }
 
+    /**
+     * rows inserted , removed or moved by raw notifyItem*() of subclass are treated as notifyDataSetChanged() ,
+     * so that the cached item count never outlives the change.
+     * Rows at group items are taken as folded groups first , so that groups without id keep expand status by index
+     */
+    private void onRawRowsInserted(int positionStart, int itemCount) {
+        final int groupIndex = getGroupIndexOfRow(positionStart);
+        if (groupIndex >= 0) {
+            insertBits(mExpandGroupBits, groupIndex, itemCount);
+        }
+    }
+
+    private void onRawRowsRemoved(int positionStart, int itemCount) {
+        final int groupIndex = getGroupIndexOfRow(positionStart);
+        if (groupIndex < 0) {
+            return;
+        }
+        // removed rows should cover whole groups
+        int groupCount = 0;
+        int rowCount = 0;
+        while (rowCount < itemCount && groupIndex + groupCount < mPositionIndex.size()) {
+            rowCount += mPositionIndex.get(groupIndex + groupCount++);
+        }
+        if (rowCount == itemCount) {
+            removeBits(mExpandGroupBits, groupIndex, groupCount);
+        }
+    }
+
+    private void onRawRowMoved(int fromPosition, int toPosition) {
+        final int fromGroupIndex = getGroupIndexOfRow(fromPosition);
+        final int toGroupIndex = getGroupIndexOfRow(toPosition);
+        final int groupCount = mPositionIndex.size();
+        if (fromGroupIndex < 0 || toGroupIndex < 0 || fromGroupIndex >= groupCount || toGroupIndex >= groupCount
+                || mPositionIndex.get(fromGroupIndex) != 1
+                || toGroupIndex > fromGroupIndex && mPositionIndex.get(toGroupIndex) != 1) {
+            // a row moved down lands after the row at toPosition , which should not be followed by children
+            return;
+        }
+        final boolean isExpanding = mExpandGroupBits.get(fromGroupIndex);
+        removeBits(mExpandGroupBits, fromGroupIndex, 1);
+        insertBits(mExpandGroupBits, toGroupIndex, 1);
+        mExpandGroupBits.set(toGroupIndex, isExpanding);
+    }
+
+    /**
+     * @return index of the group whose item is at position before the change , the group count for the position after all groups ,
+     * or -1 if position is not at a group item , or the position index is outdated
+     */
+    private int getGroupIndexOfRow(int position) {
+        if (mPositionIndexDirty) {
+            return -1;
+        }
+        if (mHeaderViewProducer != null) {
+            position--;
+        }
+        final int total = mPositionIndex.total();
+        if (position < 0 || position > total) {
+            return -1;
+        }
+        if (position == total) {
+            return mPositionIndex.size();
+        }
+        final int groupIndex = mPositionIndex.groupAt(position);
+        return mPositionIndex.positionOf(groupIndex) == position ? groupIndex : -1;
+    }
+
+    private void onDataSetChanged() {
+        mExpandGroupBits = matchExpandGroups(getGroups(), mExpandGroupIds, null);
+        rebuildExpandGroupKeys();
+        mChildPager.clear();
+        mChildRevealer.clear();
+        mPreviewChildCounts.clear();
+        mChildOrders.clear();
+        invalidatePositionIndex();
+        mGroupIndexMapDirty = true;
+        mDataSetVersion++;
+    }
+
     /**
      * get group count
      *
@@ -123,6 +436,30 @@ public abstract class BaseExpandableRecyclerViewAdapter
         return 0;
     }
 
+    /**
+     * stable id of group , used by {@link #getItemId(int)} when {@link #setHasStableIds(boolean)} is enabled ,
+     * and to keep expand status across data set changes without calling GroupBean.equals()/hashCode().
+     * <p>
+     * May be called on background thread by {@link #submitGroups(List)}.
+     *
+     * @param groupBean GroupBean
+     * @return id unique among groups , in range [0, 0x7FFFFFFF] , or {@link RecyclerView#NO_ID}
+     */
+    protected long getGroupId(GroupBean groupBean) {
+        return RecyclerView.NO_ID;
+    }
+
+    /**
+     * stable id of child , used by {@link #getItemId(int)} when {@link #setHasStableIds(boolean)} is enabled
+     *
+     * @param groupBean GroupBean
+     * @param childBean ChildBean
+     * @return id unique among children of the same group , in range [0, 0xFFFFFFFF] , or {@link RecyclerView#NO_ID}
+     */
+    protected long getChildId(GroupBean groupBean, ChildBean childBean) {
+        return RecyclerView.NO_ID;
+    }
+
     /**
      * create {@link ChildViewHolder} for child item
      *
@@ -171,130 +508,1921 @@ public abstract class BaseExpandableRecyclerViewAdapter
         }
     }
 
+    /**
+     * enable consistency check of the cached position bookkeeping ,
+     * which costs O(n) per {@link #getItemCount()} , so do not enable it in release build
+     *
+     * @param debugEnabled whether to enable
+     */
+    public final void setDebugEnabled(boolean debugEnabled) {
+        mDebugEnabled = debugEnabled;
+    }
+
+    /**
+     * when more than threshold groups are expanded or folded at once ,
+     * e.g. by {@link #expandAll()} or {@link #foldAll()} ,
+     * notifyDataSetChanged() is called instead of notifying each group.
+     * Also when sorting by {@link #sortChildren(BaseGroupBean, Comparator)} needs more than threshold moves ,
+     * shown children are rebound by one range change instead
+     *
+     * @param threshold max num of groups or moves to notify separately , default is 100
+     */
+    public final void setBatchNotifyThreshold(int threshold) {
+        mBatchNotifyThreshold = threshold;
+    }
+
+    /**
+     * load children page by page on background thread instead of from {@link BaseGroupBean#getChildAt(int)} ,
+     * an expanding group shows loaded children followed by a loading row ,
+     * the next page is loaded when the loading row is bound , until a page has less than pageSize children.
+     * <p>
+     * Loaded children of a group are dropped after it is folded for a while , see {@link #setChildPageEvictDelay(long)}.
+     * Children can not be inserted or removed by notifyChild*() or {@link #setGroupChildren(BaseGroupBean, List)} in this mode.
+     *
+     * @param loader              loader of children , or null to get children from GroupBean
+     * @param pageSize            num of children per page
+     * @param loadingViewProducer producer of the loading row
+     */
+    public final void setChildPageLoader(ChildPageLoader<GroupBean, ChildBean> loader, int pageSize, ViewProducer loadingViewProducer) {
+        if (loader != null && (pageSize <= 0 || loadingViewProducer == null)) {
+            throw new IllegalArgumentException("invalid pageSize " + pageSize + " or loadingViewProducer " + loadingViewProducer);
+        }
+        mChildPager.setLoader(loader, pageSize, loadingViewProducer);
+        mChildRevealer.clear();
+        mPreviewChildCounts.clear();
+        mChildOrders.clear();
+        mDataSetVersion++;
+        notifyAllRowsChanged();
+    }
+
+    /**
+     * @param delayMillis time after which children loaded by {@link ChildPageLoader} are dropped since the group is folded ,
+     *                    default is 30s
+     */
+    public final void setChildPageEvictDelay(long delayMillis) {
+        mChildPager.setEvictDelay(delayMillis);
+    }
+
+    /**
+     * expand large groups progressively : only firstChunkSize children are inserted when a group is expanded ,
+     * the rest are appended chunkSize per frame , so that expanding a group costs the same regardless of its size.
+     *
+     * @param firstChunkSize num of children inserted at once when expanding , about the num of rows filling the viewport ,
+     *                       0 to disable progressive expanding
+     * @param chunkSize      num of children appended per frame , more are appended for huge groups
+     *                       so that the rest are shown within 30 frames
+     */
+    public final void setProgressiveExpand(int firstChunkSize, int chunkSize) {
+        if (firstChunkSize < 0 || (firstChunkSize > 0 && chunkSize <= 0)) {
+            throw new IllegalArgumentException("invalid firstChunkSize " + firstChunkSize + " or chunkSize " + chunkSize);
+        }
+        mChildRevealer.setChunkSizes(firstChunkSize, chunkSize);
+        if (firstChunkSize == 0) {
+            finishRevealingChildren();
+        }
+    }
+
+    /**
+     * show at most previewChildCount children when a group is expanded , followed by a "show more" row if it has more ,
+     * clicking the row shows showMoreChildCount more children.
+     *
+     * @param previewChildCount     num of children shown when expanding a group , 0 to show all children
+     * @param showMoreChildCount    num of children shown more per click
+     * @param showMoreViewProducer  producer of the "show more" row
+     */
+    public final void setChildPreview(int previewChildCount, int showMoreChildCount, ViewProducer showMoreViewProducer) {
+        if (previewChildCount < 0 || (previewChildCount > 0 && (showMoreChildCount <= 0 || showMoreViewProducer == null))) {
+            throw new IllegalArgumentException("invalid previewChildCount " + previewChildCount
+                    + " or showMoreChildCount " + showMoreChildCount + " or showMoreViewProducer " + showMoreViewProducer);
+        }
+        mPreviewChildCount = previewChildCount;
+        mShowMoreChildCount = showMoreChildCount;
+        mShowMoreViewProducer = showMoreViewProducer;
+        mPreviewChildCounts.clear();
+        notifyAllRowsChanged();
+    }
+
+    /**
+     * back groups by a {@link PagedGroupList} , whose groups are loaded on background thread around bound groups ,
+     * groups not loaded yet are shown as placeholder rows and can not be expanded.
+     * <p>
+     * {@link #getGroupCount()} and {@link #getGroupItem(int)} should return {@link PagedGroupList#size()} and {@link PagedGroupList#get(int)}.
+     * Pages with expanding groups are kept in memory.
+     * Groups can not be inserted or removed by notifyGroup*() or {@link #submitGroups(List)} in this mode ,
+     * set a new PagedGroupList instead.
+     *
+     * @param pagedGroupList          paged groups , or null to leave paged mode
+     * @param placeholderViewProducer producer of placeholder rows
+     */
+    public final void setPagedGroupList(PagedGroupList<GroupBean> pagedGroupList, ViewProducer placeholderViewProducer) {
+        if (pagedGroupList != null && placeholderViewProducer == null) {
+            throw new IllegalArgumentException("placeholderViewProducer is required");
+        }
+        mPagedGroupList = pagedGroupList;
+        mPlaceholderViewProducer = placeholderViewProducer;
+        // expand status is kept by index , dropping groups no longer exist or not loaded
+        final int groupCount = getGroupCount();
+        mExpandGroupBits.clear(groupCount, Math.max(groupCount, mExpandGroupBits.length()));
+        for (int i = mExpandGroupBits.nextSetBit(0); i >= 0; i = mExpandGroupBits.nextSetBit(i + 1)) {
+            if (!isGroupExpandable(getGroupItem(i))) {
+                mExpandGroupBits.clear(i);
+            }
+        }
+        rebuildExpandGroupKeys();
+        mChildPager.clear();
+        mChildRevealer.clear();
+        mPreviewChildCounts.clear();
+        mChildOrders.clear();
+        mGroupIndexMapDirty = true;
+        mDataSetVersion++;
+        notifyAllRowsChanged();
+    }
+
     public final void setListener(ExpandableRecyclerViewOnClickListener<GroupBean, ChildBean> listener) {
         mListener = listener;
     }
 
     public final boolean isGroupExpanding(GroupBean groupBean) {
-        return mExpandGroupSet.contains(groupBean);
+        return isGroupExpanding(getGroupIndex(groupBean));
+    }
+
+    /**
+     * @param groupIndex index of group
+     * @return whether the group is expanding , false if groupIndex is invalid
+     */
+    public final boolean isGroupExpanding(int groupIndex) {
+        return groupIndex >= 0 && mExpandGroupBits.get(groupIndex);
     }
 
     public final boolean expandGroup(GroupBean groupBean) {
-        if (groupBean.isExpandable() && !isGroupExpanding(groupBean)) {
-            mExpandGroupSet.add(groupBean);
-            final int position = getAdapterPosition(getGroupIndex(groupBean));
-            notifyItemRangeInserted(position + 1, groupBean.getChildCount());
-            notifyItemChanged(position, EXPAND_PAYLOAD);
-            return true;
+        return expandGroup(getGroupIndex(groupBean));
+    }
+
+    /**
+     * @param groupIndex index of group
+     * @return whether the group is newly expanded
+     */
+    public final boolean expandGroup(int groupIndex) {
+        if (groupIndex < 0 || groupIndex >= getGroupCount() || isGroupExpanding(groupIndex)) {
+            return false;
+        }
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        if (groupBean == null || !groupBean.isExpandable()) {
+            return false;
         }
-        return false;
+        setGroupExpandingInternal(groupIndex, groupBean, true);
+        updatePositionIndex(groupIndex, groupBean);
+        final int position = getAdapterPosition(groupIndex);
+        notifyRowsInserted(position + 1, getChildRowCount(groupIndex, groupBean));
+        notifyItemChanged(position, EXPAND_PAYLOAD);
+        return true;
     }
 
     public final void foldAll() {
-        Iterator<GroupBean> iter = mExpandGroupSet.iterator();
-        while (iter.hasNext()) {
-            GroupBean groupBean = iter.next();
-            final int position = getAdapterPosition(getGroupIndex(groupBean));
-            notifyItemRangeRemoved(position + 1, groupBean.getChildCount());
-            notifyItemChanged(position, EXPAND_PAYLOAD);
-            iter.remove();
+        if (mExpandGroupBits.isEmpty()) {
+            return;
+        }
+        final int[] groupIndexes = new int[mExpandGroupBits.cardinality()];
+        int i = 0;
+        for (int groupIndex = mExpandGroupBits.nextSetBit(0); groupIndex >= 0; groupIndex = mExpandGroupBits.nextSetBit(groupIndex + 1)) {
+            groupIndexes[i++] = groupIndex;
         }
+        setGroupsExpanding(groupIndexes, groupIndexes.length, false);
+        // drop outdated groups which are not in the group list any more
+        mExpandGroupBits.clear();
+        mExpandGroupIds.clear();
     }
 
-    public final boolean foldGroup(GroupBean groupBean) {
-        if (mExpandGroupSet.remove(groupBean)) {
-            final int position = getAdapterPosition(getGroupIndex(groupBean));
-            notifyItemRangeRemoved(position + 1, groupBean.getChildCount());
-            notifyItemChanged(position, EXPAND_PAYLOAD);
-            return true;
+    /**
+     * expand all expandable groups
+     *
+     * @return num of groups newly expanded
+     */
+    public final int expandAll() {
+        final int groupCount = getGroupCount();
+        final int[] groupIndexes = new int[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            groupIndexes[i] = i;
         }
-        return false;
+        return setGroupsExpanding(groupIndexes, groupCount, true);
     }
 
-    @Override
-    public final int getItemCount() {
-        int result = getGroupCount();
-        if (result == 0 && mEmptyViewProducer != null) {
-            mIsEmpty = true;
-            return mHeaderViewProducer != null && mShowHeaderViewWhenEmpty ? 2 : 1;
-        }
-        mIsEmpty = false;
-        for (GroupBean groupBean : mExpandGroupSet) {
-            if (getGroupIndex(groupBean) < 0) {
-                Log.e(TAG, "invalid index in expandgroupList : " + groupBean);
-                continue;
-            }
-            result += groupBean.getChildCount();
-        }
-        if (mHeaderViewProducer != null) {
-            result++;
+    /**
+     * expand groups in one batch
+     *
+     * @param groupBeans groups to expand
+     * @return num of groups newly expanded
+     */
+    public final int expandGroups(@NonNull Collection<GroupBean> groupBeans) {
+        return setGroupsExpanding(getGroupIndexes(groupBeans), groupBeans.size(), true);
+    }
+
+    /**
+     * fold groups in one batch
+     *
+     * @param groupBeans groups to fold
+     * @return num of groups newly folded
+     */
+    public final int foldGroups(@NonNull Collection<GroupBean> groupBeans) {
+        return setGroupsExpanding(getGroupIndexes(groupBeans), groupBeans.size(), false);
+    }
+
+    private int[] getGroupIndexes(Collection<GroupBean> groupBeans) {
+        final int[] result = new int[groupBeans.size()];
+        int i = 0;
+        for (GroupBean groupBean : groupBeans) {
+            result[i++] = getGroupIndex(groupBean);
         }
         return result;
     }
 
-    public final int getAdapterPosition(int groupIndex) {
-        int result = groupIndex;
-        for (GroupBean groupBean : mExpandGroupSet) {
-            if (getGroupIndex(groupBean) >= 0 && getGroupIndex(groupBean) < groupIndex) {
-                result += groupBean.getChildCount();
+    /**
+     * switch expand status of groups , and notify all changes in one pass
+     *
+     * @param groupIndexes index of groups , may be unordered and contain duplicates or invalid index ,
+     *                     will be reused as buffer
+     * @param size         num of valid elements in groupIndexes
+     * @param expand       target expand status
+     * @return num of groups whose expand status changed
+     */
+    private int setGroupsExpanding(int[] groupIndexes, int size, boolean expand) {
+        Arrays.sort(groupIndexes, 0, size);
+        final int groupCount = getGroupCount();
+        int count = 0;
+        int lastGroupIndex = -1;
+        for (int i = 0; i < size; i++) {
+            final int groupIndex = groupIndexes[i];
+            if (groupIndex < 0 || groupIndex >= groupCount || groupIndex == lastGroupIndex) {
+                continue;
+            }
+            lastGroupIndex = groupIndex;
+            final boolean isExpanding = isGroupExpanding(groupIndex);
+            if (expand ? !isExpanding && isGroupExpandable(getGroupItem(groupIndex)) : isExpanding) {
+                groupIndexes[count++] = groupIndex;
             }
         }
-        if (mHeaderViewProducer != null) {
-            result++;
+        if (count == 0) {
+            return 0;
         }
-        return result;
-    }
 
-    public final int getGroupIndex(@NonNull GroupBean groupBean) {
-        for (int i = 0; i < getGroupCount(); i++) {
-            if (groupBean.equals(getGroupItem(i))) {
-                return i;
+        if (count > mBatchNotifyThreshold) {
+            for (int i = 0; i < count; i++) {
+                setGroupExpandingInternal(groupIndexes[i], getGroupItem(groupIndexes[i]), expand);
+            }
+            invalidatePositionIndex();
+            mIsDispatchingExpandChange = true;
+            try {
+                notifyDataSetChanged();
+            } finally {
+                mIsDispatchingExpandChange = false;
             }
+            return count;
         }
-        return -1;
-    }
 
-    @Override
-    public final int getItemViewType(int position) {
-        if (mIsEmpty) {
-            return position == 0 && mShowHeaderViewWhenEmpty && mHeaderViewProducer != null ? TYPE_HEADER : TYPE_EMPTY;
+        // positions before any change
+        final int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = getAdapterPosition(groupIndexes[i]);
         }
-        if (position == 0 && mHeaderViewProducer != null) {
-            return TYPE_HEADER;
+        for (int i = 0; i < count; i++) {
+            final GroupBean groupBean = getGroupItem(groupIndexes[i]);
+            setGroupExpandingInternal(groupIndexes[i], groupBean, expand);
+            updatePositionIndex(groupIndexes[i], groupBean);
         }
-        int[] coord = translateToDoubleIndex(position);
-        GroupBean groupBean = getGroupItem(coord[0]);
-        if (coord[1] < 0) {
-            int groupType = getGroupType(groupBean);
-            if ((groupType & TYPE_MASK) == 0) {
-                return groupType | TYPE_GROUP;
+        // from bottom to top , so that positions of the rest groups are not shifted
+        for (int i = count - 1; i >= 0; i--) {
+            final int childRowCount = getChildRowCount(groupIndexes[i], getGroupItem(groupIndexes[i]));
+            if (expand) {
+                notifyRowsInserted(positions[i] + 1, childRowCount);
             } else {
-                throw new IllegalStateException(
-                        String.format(Locale.getDefault(), "GroupType [%d] conflits with MASK [%d]", groupType, TYPE_MASK));
+                notifyRowsRemoved(positions[i] + 1, childRowCount);
             }
+            notifyItemChanged(positions[i], EXPAND_PAYLOAD);
+        }
+        return count;
+    }
+
+    private void setGroupExpandingInternal(int groupIndex, GroupBean groupBean, boolean expand) {
+        mExpandGroupBits.set(groupIndex, expand);
+        if (expand) {
+            // groups are expanded to preview again
+            mPreviewChildCounts.delete(groupIndex);
+            // revealed children of folded groups are dropped lazily by revealNextChildren()
+            mChildRevealer.start(groupIndex, getPreviewedChildCount(groupIndex, getChildCount(groupIndex, groupBean)));
+        }
+        mChildPager.onGroupExpandChanged(groupIndex, expand);
+        final long groupId = getGroupId(groupBean);
+        if (groupId == RecyclerView.NO_ID) {
+            return;
+        }
+        if (expand) {
+            mExpandGroupIds.add(groupId);
         } else {
-            int childType = getChildType(groupBean, groupBean.getChildAt(coord[1]));
-            if ((childType & TYPE_MASK) == 0) {
-                return childType | TYPE_CHILD;
-            } else {
-                throw new IllegalStateException(
-                        String.format(Locale.getDefault(), "ChildType [%d] conflits with MASK [%d]", childType, TYPE_MASK));
-            }
+            mExpandGroupIds.remove(groupId);
         }
     }
 
+    /**
+     * @return false for placeholder of {@link PagedGroupList}
+     */
+    private static boolean isGroupExpandable(BaseGroupBean<?> groupBean) {
+        return groupBean != null && groupBean.isExpandable();
+    }
 
-    @Override
-    public final RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        switch (viewType & TYPE_MASK) {
-            case TYPE_EMPTY:
-                return mEmptyViewProducer.onCreateViewHolder(parent);
-            case TYPE_HEADER:
-                return mHeaderViewProducer.onCreateViewHolder(parent);
+    /**
+     * rebuild ids of expanding groups from mExpandGroupBits , dropping ids of groups no longer exist
+     */
+    private void rebuildExpandGroupKeys() {
+        mExpandGroupIds.clear();
+        final int groupCount = getGroupCount();
+        for (int i = mExpandGroupBits.nextSetBit(0); i >= 0; i = mExpandGroupBits.nextSetBit(i + 1)) {
+            if (i >= groupCount) {
+                mExpandGroupBits.clear(i, mExpandGroupBits.length());
+                break;
+            }
+            final long groupId = getGroupId(getGroupItem(i));
+            if (groupId != RecyclerView.NO_ID) {
+                mExpandGroupIds.add(groupId);
+            }
+        }
+    }
+
+    /**
+     * @return expanding groups without id , kept by identity so that GroupBean.equals()/hashCode() is never called
+     */
+    private Set<GroupBean> getExpandGroupBeans() {
+        final Set<GroupBean> result = Collections.newSetFromMap(new IdentityHashMap<GroupBean, Boolean>());
+        final int groupCount = getGroupCount();
+        for (int i = mExpandGroupBits.nextSetBit(0); i >= 0 && i < groupCount; i = mExpandGroupBits.nextSetBit(i + 1)) {
+            final GroupBean groupBean = getGroupItem(i);
+            if (groupBean != null && getGroupId(groupBean) == RecyclerView.NO_ID) {
+                result.add(groupBean);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return snapshot of current groups
+     */
+    private List<GroupBean> getGroups() {
+        final int groupCount = getGroupCount();
+        final List<GroupBean> result = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            result.add(getGroupItem(i));
+        }
+        return result;
+    }
+
+    /**
+     * save expand status into outState , as ids of expanding groups if all of them have {@link #getGroupId(BaseGroupBean)} ,
+     * otherwise as bits of group index , so that the size stays small for a large num of groups.
+     * Bits are always used for {@link PagedGroupList} , since groups not loaded on restore can not be matched by id
+     *
+     * @param outState bundle to save into , e.g. from Activity#onSaveInstanceState(Bundle)
+     */
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        if (!isGroupPaged() && getExpandGroupBeans().isEmpty()) {
+            outState.putLongArray(STATE_EXPAND_GROUP_IDS, mExpandGroupIds.toArray());
+        } else {
+            outState.putLongArray(STATE_EXPAND_GROUP_BITS, mExpandGroupBits.toLongArray());
+        }
+    }
+
+    /**
+     * restore expand status saved by {@link #onSaveInstanceState(Bundle)} ,
+     * should be called after groups are set , groups are matched by id or by index as they were saved
+     *
+     * @param savedInstanceState bundle saved by {@link #onSaveInstanceState(Bundle)}
+     */
+    public void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
+        final long[] expandGroupIds = savedInstanceState.getLongArray(STATE_EXPAND_GROUP_IDS);
+        final long[] expandGroupBits = savedInstanceState.getLongArray(STATE_EXPAND_GROUP_BITS);
+        final BitSet bits;
+        if (expandGroupIds != null) {
+            final LongHashSet ids = new LongHashSet();
+            for (long id : expandGroupIds) {
+                ids.add(id);
+            }
+            bits = matchExpandGroups(getGroups(), ids, Collections.<GroupBean>emptySet());
+        } else if (expandGroupBits != null) {
+            bits = BitSet.valueOf(expandGroupBits);
+        } else {
+            return;
+        }
+        // drop groups no longer exist or unexpandable
+        final int groupCount = getGroupCount();
+        bits.clear(groupCount, Math.max(groupCount, bits.length()));
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            if (!isGroupExpandable(getGroupItem(i))) {
+                bits.clear(i);
+            }
+        }
+        mExpandGroupBits = bits;
+        rebuildExpandGroupKeys();
+        mChildRevealer.clear();
+        mPreviewChildCounts.clear();
+        invalidatePositionIndex();
+        mIsDispatchingExpandChange = true;
+        try {
+            notifyDataSetChanged();
+        } finally {
+            mIsDispatchingExpandChange = false;
+        }
+    }
+
+    /**
+     * find groups matching the keys of expanding groups
+     *
+     * @param groups           groups to match
+     * @param expandGroupIds   ids of expanding groups
+     * @param expandGroupBeans expanding groups without id , matched by identity ,
+     *                         or null to keep expand status of groups without id at the same index of mExpandGroupBits
+     * @return expand status of groups keyed by index
+     */
+    private BitSet matchExpandGroups(List<GroupBean> groups, LongHashSet expandGroupIds, Set<GroupBean> expandGroupBeans) {
+        final BitSet result = new BitSet();
+        if (expandGroupIds.isEmpty() && (expandGroupBeans == null ? mExpandGroupBits.isEmpty() : expandGroupBeans.isEmpty())) {
+            return result;
+        }
+        final int groupCount = groups.size();
+        for (int i = 0; i < groupCount; i++) {
+            final GroupBean groupBean = groups.get(i);
+            if (groupBean == null) {
+                continue;
+            }
+            final long groupId = getGroupId(groupBean);
+            if (groupId != RecyclerView.NO_ID
+                    ? expandGroupIds.contains(groupId)
+                    : expandGroupBeans == null ? mExpandGroupBits.get(i) : expandGroupBeans.contains(groupBean)) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * set executor to compute diff of {@link #submitGroups(List)} ,
+     * a shared single thread executor is used by default
+     *
+     * @param executor background executor
+     */
+    public final void setBackgroundExecutor(Executor executor) {
+        mBackgroundExecutor = executor;
+    }
+
+    /**
+     * replace all groups , the diff between old and new items is computed on background thread ,
+     * then dispatched as minimal insert/remove/move/change notifications instead of notifyDataSetChanged().
+     * <p>
+     * A new group keeps expanding if it has the same {@link #getGroupId(BaseGroupBean)} as a currently expanding group ,
+     * or is the same instance as one for groups without id.
+     * <p>
+     * {@link #onApplyGroups(List)} must be overridden to swap the backing group list.
+     *
+     * @param groups new groups , should not be modified after submitted
+     */
+    @MainThread
+    public final void submitGroups(@NonNull final List<GroupBean> groups) {
+        checkGroupsNotPaged();
+        // submitted groups are not filtered , expand status of user is kept as it is
+        mIsFiltering = false;
+        mUnfilteredExpandGroupIds = null;
+        mUnfilteredExpandGroupBeans = null;
+        submitGroups(groups, null, new LongHashSet(mExpandGroupIds), getExpandGroupBeans());
+    }
+
+    /**
+     * reorder current groups by comparator , the order is computed as a permutation of group indexes on background thread ,
+     * then dispatched as moves of the rows of each moved group , children are kept with their group.
+     * Falls back to notifyDataSetChanged() if more rows than {@link #setBatchNotifyThreshold(int)} are moved.
+     * <p>
+     * {@link #onApplyGroups(List)} must be overridden to swap the backing group list.
+     *
+     * @param comparator comparator of groups , called on background thread
+     */
+    @MainThread
+    public final void sortGroups(@NonNull final Comparator<? super GroupBean> comparator) {
+        checkGroupsNotPaged();
+        // sorting and submitting cancel each other , the latest one wins
+        final int generation = ++mSubmitGeneration;
+        final int maxMoveCount = mBatchNotifyThreshold;
+        final List<GroupBean> oldGroups = getGroups();
+
+        getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final int[] order = ChildOrder.sortIndexes(oldGroups, comparator);
+                final int[] moves = ChildOrder.computeMoves(order, maxMoveCount);
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mSubmitGeneration) {
+                            // a newer list has been submitted
+                            return;
+                        }
+                        if (!isSameGroups(oldGroups)) {
+                            // groups changed while sorting , order is outdated
+                            sortGroups(comparator);
+                            return;
+                        }
+                        applyGroupOrder(oldGroups, order, moves);
+                    }
+                });
+            }
+        });
+    }
+
+    private boolean isSameGroups(List<GroupBean> groups) {
+        if (getGroupCount() != groups.size()) {
+            return false;
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            if (getGroupItem(i) != groups.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param order old index of group at each new index
+     * @param moves moves from {@link ChildOrder#computeMoves(int[], int)} , or null if there are too many
+     */
+    private void applyGroupOrder(List<GroupBean> oldGroups, int[] order, int[] moves) {
+        final int groupCount = order.length;
+        if (groupCount == 0) {
+            return;
+        }
+        // rows of each group are moved with it
+        final GroupPositionIndex positionIndex = getPositionIndex();
+        final int[] rowCounts = new int[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            rowCounts[i] = positionIndex.get(i);
+        }
+        final int[] rowMoves = ChildOrder.computeRowMoves(rowCounts, moves, mBatchNotifyThreshold);
+        final int positionStart = getAdapterPosition(0);
+
+        final List<GroupBean> groups = new ArrayList<>(groupCount);
+        // new index of group at each old index
+        final int[] groupIndexes = new int[groupCount];
+        final BitSet expandGroupBits = new BitSet(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(oldGroups.get(order[i]));
+            groupIndexes[order[i]] = i;
+            expandGroupBits.set(i, mExpandGroupBits.get(order[i]));
+        }
+        onApplyGroups(groups);
+        mExpandGroupBits = expandGroupBits;
+        mChildPager.permuteGroups(groupIndexes);
+        mChildRevealer.permuteGroups(groupIndexes);
+        mPreviewChildCounts = permuteKeys(mPreviewChildCounts, groupIndexes);
+        mChildOrders = permuteKeys(mChildOrders, groupIndexes);
+        onGroupsPermuted(groupIndexes);
+        if (rowMoves == null) {
+            notifyGroupRangeShiftedByDataSetChanged();
+            return;
+        }
+        mStructureVersion++;
+        mDataSetVersion++;
+        mGroupIndexMapDirty = true;
+        invalidatePositionIndex();
+        for (int i = 0; i < rowMoves.length; i += 2) {
+            notifyRowMoved(positionStart + rowMoves[i], positionStart + rowMoves[i + 1]);
+        }
+    }
+
+    /**
+     * show groups and children of sourceGroups matching filter , the filtering and the diff are computed on background thread ,
+     * an outdated filtering is cancelled when a new one is submitted , e.g. on every keystroke of a search box.
+     * <p>
+     * Groups kept for their matching children are expanded automatically ,
+     * expand status of user before filtering is restored when filter is cleared by passing null.
+     * Filtered groups are created by {@link GroupFilter#onCreateFilteredGroup(BaseGroupBean, List)} ,
+     * so {@link #areGroupsTheSame(BaseGroupBean, BaseGroupBean)} should match them with source groups ,
+     * e.g. by {@link #getGroupId(BaseGroupBean)}.
+     * <p>
+     * {@link #onApplyGroups(List)} must be overridden to swap the backing group list.
+     *
+     * @param sourceGroups all groups , should not be modified after submitted
+     * @param filter       filter of groups and children , or null to show all sourceGroups
+     */
+    @MainThread
+    public final void filterGroups(@NonNull List<GroupBean> sourceGroups, GroupFilter<GroupBean, ChildBean> filter) {
+        checkGroupsNotPaged();
+        checkChildrenNotPaged();
+        if (filter == null) {
+            if (!mIsFiltering) {
+                submitGroups(sourceGroups);
+                return;
+            }
+            final LongHashSet expandGroupIds = mUnfilteredExpandGroupIds;
+            final Set<GroupBean> expandGroupBeans = mUnfilteredExpandGroupBeans;
+            mIsFiltering = false;
+            mUnfilteredExpandGroupIds = null;
+            mUnfilteredExpandGroupBeans = null;
+            submitGroups(sourceGroups, null, expandGroupIds, expandGroupBeans);
+            return;
+        }
+        if (!mIsFiltering) {
+            mIsFiltering = true;
+            mUnfilteredExpandGroupIds = new LongHashSet(mExpandGroupIds);
+            mUnfilteredExpandGroupBeans = getExpandGroupBeans();
+        }
+        // groups matching filter themselves keep the expand status of user
+        submitGroups(sourceGroups, filter, new LongHashSet(mUnfilteredExpandGroupIds), mUnfilteredExpandGroupBeans);
+    }
+
+    /**
+     * @param sourceGroups     groups to show , filtered by filter on background thread if it is not null
+     * @param expandGroupIds   ids of groups to expand
+     * @param expandGroupBeans groups without id to expand , matched by identity
+     */
+    private void submitGroups(final List<GroupBean> sourceGroups, final GroupFilter<GroupBean, ChildBean> filter,
+                              final LongHashSet expandGroupIds, final Set<GroupBean> expandGroupBeans) {
+        final int generation = ++mSubmitGeneration;
+        final int structureVersion = mStructureVersion;
+        final List<GroupBean> oldGroups = getGroups();
+        final FlatGroupList<GroupBean, ChildBean> oldList
+                = new FlatGroupList<>(oldGroups, (BitSet) mExpandGroupBits.clone(), mShownGroupRows);
+        final FlatGroupList.RowSource<GroupBean, ChildBean> newGroupRows
+                = FlatGroupList.newGroupRows(mPreviewChildCount, mChildPager.isEnabled());
+
+        getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                List<GroupBean> shownGroups = sourceGroups;
+                final BitSet autoExpandGroupBits = new BitSet();
+                if (filter != null) {
+                    shownGroups = filterGroups(shownGroups, filter, autoExpandGroupBits, generation);
+                    if (shownGroups == null) {
+                        // cancelled by a newer submit
+                        return;
+                    }
+                }
+                final List<GroupBean> groups = shownGroups;
+                final BitSet expandGroupBits = matchExpandGroups(groups, expandGroupIds, expandGroupBeans);
+                expandGroupBits.or(autoExpandGroupBits);
+                final FlatGroupList<GroupBean, ChildBean> newList = new FlatGroupList<>(groups, expandGroupBits, newGroupRows);
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(
+                        new FlatGroupList.DiffCallback<>(oldList, newList, mItemCallback));
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mSubmitGeneration) {
+                            // a newer list has been submitted
+                            return;
+                        }
+                        if (structureVersion != mStructureVersion) {
+                            // shown items changed while diffing , old list is outdated
+                            submitGroups(sourceGroups, filter, expandGroupIds, expandGroupBeans);
+                            return;
+                        }
+                        applyGroups(oldGroups, groups, newList.mExpandGroupBits, diffResult);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * called on background thread
+     *
+     * @param autoExpandGroupBits set with index of groups kept for their matching children
+     * @return groups and children matching filter , or null if a newer submit happens while filtering
+     */
+    @WorkerThread
+    private List<GroupBean> filterGroups(List<GroupBean> sourceGroups, GroupFilter<GroupBean, ChildBean> filter,
+                                         BitSet autoExpandGroupBits, int generation) {
+        final List<GroupBean> result = new ArrayList<>();
+        final List<ChildBean> matchedChildren = new ArrayList<>();
+        for (int i = 0; i < sourceGroups.size(); i++) {
+            if (generation != mSubmitGeneration) {
+                return null;
+            }
+            final GroupBean groupBean = sourceGroups.get(i);
+            if (filter.matchGroup(groupBean)) {
+                result.add(groupBean);
+                continue;
+            }
+            final int childCount = groupBean.isExpandable() ? groupBean.getChildCount() : 0;
+            for (int j = 0; j < childCount; j++) {
+                final ChildBean childBean = groupBean.getChildAt(j);
+                if (filter.matchChild(groupBean, childBean)) {
+                    matchedChildren.add(childBean);
+                }
+            }
+            if (!matchedChildren.isEmpty()) {
+                autoExpandGroupBits.set(result.size());
+                result.add(filter.onCreateFilteredGroup(groupBean, new ArrayList<>(matchedChildren)));
+                matchedChildren.clear();
+            }
+        }
+        return result;
+    }
+
+    private void applyGroups(List<GroupBean> oldGroups, List<GroupBean> groups, BitSet expandGroupBits, DiffUtil.DiffResult diffResult) {
+        // new groups are shown in the order of GroupBean , as the diff is computed
+        clearChildOrders();
+        onApplyGroups(groups);
+        mExpandGroupBits = (BitSet) expandGroupBits.clone();
+        rebuildExpandGroupKeys();
+        // children of new groups are loaded again
+        mChildPager.clear();
+        mChildRevealer.clear();
+        mPreviewChildCounts.clear();
+        invalidatePositionIndex();
+        mGroupIndexMapDirty = true;
+        mDataSetVersion++;
+        onGroupsReplaced(oldGroups);
+        if (isEmptyStatusSwitched(oldGroups.size(), groups.size())) {
+            // the empty view is not a row of the diff
+            notifyGroupRangeShiftedByDataSetChanged();
+            return;
+        }
+        // rows of the diff start below the header
+        diffResult.dispatchUpdatesTo(new OffsetListUpdateCallback(mHeaderViewProducer != null ? 1 : 0));
+    }
+
+    /**
+     * replace children of a group , the diff between old and new children is computed on background thread ,
+     * and only dispatched when the group is expanding.
+     * <p>
+     * {@link #onApplyGroupChildren(BaseGroupBean, List)} must be overridden to swap the backing child list.
+     *
+     * @param groupBean group whose children are replaced
+     * @param children  new children , should not be modified after submitted
+     */
+    @MainThread
+    public final void setGroupChildren(@NonNull final GroupBean groupBean, @NonNull final List<ChildBean> children) {
+        checkChildrenNotPaged();
+        final int generation = ++mChildSubmitGeneration;
+        mChildSubmitGenerations.put(groupBean, generation);
+        final int dataSetVersion = mDataSetVersion;
+        final int childCount = groupBean.getChildCount();
+        final List<ChildBean> oldChildren = new ArrayList<>(childCount);
+        for (int i = 0; i < childCount; i++) {
+            oldChildren.add(groupBean.getChildAt(i));
+        }
+
+        getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(
+                        new FlatGroupList.ChildDiffCallback<>(oldChildren, children, mItemCallback));
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        final Integer latestGeneration = mChildSubmitGenerations.get(groupBean);
+                        if (latestGeneration == null || latestGeneration != generation) {
+                            // a newer child list has been submitted
+                            return;
+                        }
+                        mChildSubmitGenerations.remove(groupBean);
+                        if (dataSetVersion != mDataSetVersion) {
+                            // groups replaced while diffing , old children are outdated
+                            setGroupChildren(groupBean, children);
+                            return;
+                        }
+                        applyGroupChildren(groupBean, oldChildren, children, diffResult);
+                    }
+                });
+            }
+        });
+    }
+
+    private void applyGroupChildren(GroupBean groupBean, List<ChildBean> oldChildren, List<ChildBean> children, DiffUtil.DiffResult diffResult) {
+        final int groupIndex = getGroupIndex(groupBean);
+        final boolean wasExpandable = groupBean.isExpandable();
+        if (groupIndex < 0) {
+            onApplyGroupChildren(groupBean, children);
+            return;
+        }
+        // diff is computed against all old children in the order of GroupBean
+        finishRevealingChildren(groupIndex);
+        final boolean wasSorted = clearChildOrder(groupIndex);
+        final int oldShownChildCount = getShownChildCount(groupIndex, groupBean);
+        final int oldFooterType = getFooterType(groupIndex);
+        onApplyGroupChildren(groupBean, children);
+        updatePositionIndex(groupIndex, groupBean);
+        onGroupChildrenReplaced(groupIndex, oldChildren);
+        final int position = getAdapterPosition(groupIndex);
+        if (isGroupExpanding(groupIndex)) {
+            final int shownChildCount = getShownChildCount(groupIndex, groupBean);
+            final int footerType = getFooterType(groupIndex);
+            if (!wasSorted && oldShownChildCount == oldChildren.size() && shownChildCount == children.size()
+                    && oldFooterType == FOOTER_NONE && footerType == FOOTER_NONE) {
+                diffResult.dispatchUpdatesTo(new OffsetListUpdateCallback(position + 1));
+            } else {
+                // ops of hidden children can not be dispatched , rebind shown rows instead
+                notifyShownChildrenReplaced(position + 1, oldShownChildCount, shownChildCount, oldFooterType, footerType);
+            }
+        }
+        if (wasExpandable != groupBean.isExpandable()) {
+            notifyItemChanged(position);
+        }
+    }
+
+    /**
+     * reorder shown children of a group by comparator , the order is computed as a permutation of child indexes on background thread ,
+     * then dispatched as move notifications if the group is expanding , so that unchanged rows are not rebound.
+     * <p>
+     * Children in GroupBean are untouched , only the order they are shown is changed ,
+     * until they are replaced by {@link #setGroupChildren(BaseGroupBean, List)} , inserted or removed ,
+     * or groups are replaced. Indexes of children passed to notifyChild*() are still indexes in GroupBean
+     *
+     * @param groupBean  group whose children are sorted
+     * @param comparator comparator of children , called on background thread
+     */
+    @MainThread
+    public final void sortChildren(@NonNull final GroupBean groupBean, @NonNull final Comparator<? super ChildBean> comparator) {
+        checkChildrenNotPaged();
+        final int groupIndex = getGroupIndex(groupBean);
+        if (groupIndex < 0) {
+            return;
+        }
+        final int generation = ++mChildSubmitGeneration;
+        mChildSubmitGenerations.put(groupBean, generation);
+        final int dataSetVersion = mDataSetVersion;
+        final int maxMoveCount = mBatchNotifyThreshold;
+        final int childCount = groupBean.getChildCount();
+        // children as shown , the order is computed against them
+        final List<ChildBean> shownChildren = new ArrayList<>(childCount);
+        for (int i = 0; i < childCount; i++) {
+            shownChildren.add(getChildItem(groupBean, groupIndex, i));
+        }
+
+        getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final int[] order = ChildOrder.sortIndexes(shownChildren, comparator);
+                final int[] moves = ChildOrder.computeMoves(order, maxMoveCount);
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        final Integer latestGeneration = mChildSubmitGenerations.get(groupBean);
+                        if (latestGeneration == null || latestGeneration != generation) {
+                            // a newer child list or order has been submitted
+                            return;
+                        }
+                        mChildSubmitGenerations.remove(groupBean);
+                        if (dataSetVersion != mDataSetVersion || !isSameChildren(groupBean, groupIndex, shownChildren)) {
+                            // children changed while sorting , order is outdated
+                            sortChildren(groupBean, comparator);
+                            return;
+                        }
+                        applyChildOrder(groupIndex, order, moves);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * reorder shown children of all groups by comparator , see {@link #sortChildren(BaseGroupBean, Comparator)}
+     *
+     * @param comparator comparator of children , called on background thread
+     */
+    @MainThread
+    public final void sortAllChildren(@NonNull Comparator<? super ChildBean> comparator) {
+        checkChildrenNotPaged();
+        final int groupCount = getGroupCount();
+        for (int i = 0; i < groupCount; i++) {
+            final GroupBean groupBean = getGroupItem(i);
+            if (groupBean != null && groupBean.getChildCount() > 1) {
+                sortChildren(groupBean, comparator);
+            }
+        }
+    }
+
+    /**
+     * @param order old shown index of child at each new shown index
+     * @param moves moves from {@link ChildOrder#computeMoves(int[], int)} , or null if there are too many
+     */
+    private void applyChildOrder(int groupIndex, int[] order, int[] moves) {
+        final int[] oldChildOrder = mChildOrders.get(groupIndex);
+        final int[] childOrder = new int[order.length];
+        boolean isSorted = true;
+        for (int i = 0; i < order.length; i++) {
+            childOrder[i] = oldChildOrder == null ? order[i] : oldChildOrder[order[i]];
+            isSorted &= childOrder[i] == i;
+        }
+        if (isSorted) {
+            // shown in the order of GroupBean again
+            mChildOrders.remove(groupIndex);
+        } else {
+            mChildOrders.put(groupIndex, childOrder);
+        }
+        // child count is not changed , only marks the shown items changed
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        updatePositionIndex(groupIndex, groupBean);
+        onGroupChildrenPermuted(groupIndex, order);
+        if (!isGroupExpanding(groupIndex)) {
+            return;
+        }
+        final int childPositionStart = getAdapterPosition(groupIndex) + 1;
+        final int shownChildCount = getShownChildCount(groupIndex, groupBean);
+        if (moves != null && shownChildCount == order.length) {
+            for (int i = 0; i < moves.length; i += 2) {
+                notifyRowMoved(childPositionStart + moves[i], childPositionStart + moves[i + 1]);
+            }
+        } else if (shownChildCount > 0) {
+            // hidden children may be moved into shown rows , which can not be notified as moves
+            notifyItemRangeChanged(childPositionStart, shownChildCount);
+        }
+    }
+
+    /**
+     * show children of a group in the order of GroupBean again , rows are not notified
+     *
+     * @return whether the children were sorted
+     */
+    private boolean clearChildOrder(int groupIndex) {
+        final int index = mChildOrders.indexOfKey(groupIndex);
+        if (index < 0) {
+            return false;
+        }
+        final int[] childOrder = mChildOrders.valueAt(index);
+        mChildOrders.removeAt(index);
+        // old shown index of each child in GroupBean
+        final int[] order = new int[childOrder.length];
+        for (int i = 0; i < childOrder.length; i++) {
+            order[childOrder[i]] = i;
+        }
+        onGroupChildrenPermuted(groupIndex, order);
+        return true;
+    }
+
+    private void clearChildOrders() {
+        for (int i = mChildOrders.size() - 1; i >= 0; i--) {
+            clearChildOrder(mChildOrders.keyAt(i));
+        }
+    }
+
+    /**
+     * @return order of shown children , index of child in GroupBean at each shown index , or null if they are not sorted
+     */
+    final int[] getChildOrder(int groupIndex) {
+        return mChildOrders.get(groupIndex);
+    }
+
+    /**
+     * @return whether the group shows the same children in the same order
+     */
+    private boolean isSameChildren(GroupBean groupBean, int groupIndex, List<ChildBean> children) {
+        if (groupIndex >= getGroupCount() || getGroupItem(groupIndex) != groupBean || groupBean.getChildCount() != children.size()) {
+            return false;
+        }
+        for (int i = 0; i < children.size(); i++) {
+            if (getChildItem(groupBean, groupIndex, i) != children.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * called on main thread when the diff of {@link #setGroupChildren(BaseGroupBean, List)} is ready ,
+     * swap the backing child list of groupBean so that {@link BaseGroupBean#getChildAt(int)} reflects children.
+     *
+     * <p>
+     * Must be overridden to use these methods , adapters not using them need not override it
+     *
+     * @param groupBean group whose children are replaced
+     * @param children  submitted children
+     */
+    protected void onApplyGroupChildren(@NonNull GroupBean groupBean, @NonNull List<ChildBean> children) {
+        throw new UnsupportedOperationException("override onApplyGroupChildren() to use setGroupChildren()");
+    }
+
+    /**
+     * called on main thread when the diff of {@link #submitGroups(List)} , {@link #sortGroups(Comparator)}
+     * or {@link #filterGroups(List, GroupFilter)} is ready , swap the backing list so that {@link #getGroupCount()} and {@link #getGroupItem(int)} reflect groups.
+     * <p>
+     * Must be overridden to use these methods , adapters not using them need not override it
+     *
+     * @param groups submitted groups
+     */
+    protected void onApplyGroups(@NonNull List<GroupBean> groups) {
+        throw new UnsupportedOperationException("override onApplyGroups() to use submitGroups() , sortGroups() or filterGroups()");
+    }
+
+    /**
+     * called on background thread by {@link #submitGroups(List)}
+     *
+     * @return whether the two beans represent the same group
+     */
+    @WorkerThread
+    protected boolean areGroupsTheSame(GroupBean oldGroup, GroupBean newGroup) {
+        return oldGroup.equals(newGroup);
+    }
+
+    /**
+     * called on background thread by {@link #submitGroups(List)} when {@link #areGroupsTheSame} returns true
+     *
+     * @return whether the group item shows the same content
+     */
+    @WorkerThread
+    protected boolean areGroupContentsTheSame(GroupBean oldGroup, GroupBean newGroup) {
+        return oldGroup.equals(newGroup);
+    }
+
+    /**
+     * called on background thread by {@link #submitGroups(List)}
+     *
+     * @return whether the two beans represent the same child
+     */
+    @WorkerThread
+    protected boolean areChildrenTheSame(ChildBean oldChild, ChildBean newChild) {
+        return oldChild == null ? newChild == null : oldChild.equals(newChild);
+    }
+
+    /**
+     * called on background thread by {@link #submitGroups(List)} when {@link #areChildrenTheSame} returns true
+     *
+     * @return whether the child item shows the same content
+     */
+    @WorkerThread
+    protected boolean areChildContentsTheSame(ChildBean oldChild, ChildBean newChild) {
+        return oldChild == null ? newChild == null : oldChild.equals(newChild);
+    }
+
+    /**
+     * called after groups are replaced by {@link #submitGroups(List)} , before the changes are notified
+     *
+     * @param oldGroups groups before replaced
+     */
+    void onGroupsReplaced(List<GroupBean> oldGroups) {
+    }
+
+    /**
+     * called after groups are reordered by {@link #sortGroups(Comparator)} , before the changes are notified
+     *
+     * @param groupIndexes new index of group at each old index
+     */
+    void onGroupsPermuted(int[] groupIndexes) {
+    }
+
+    /**
+     * called after children of a group are replaced by {@link #setGroupChildren(BaseGroupBean, List)} ,
+     * before the changes are notified
+     *
+     * @param groupIndex  index of the group
+     * @param oldChildren children before replaced
+     */
+    void onGroupChildrenReplaced(int groupIndex, List<ChildBean> oldChildren) {
+    }
+
+    /**
+     * called after shown children of a group are reordered by {@link #sortChildren(BaseGroupBean, Comparator)} ,
+     * or shown in the order of GroupBean again , before the changes are notified
+     *
+     * @param groupIndex index of the group
+     * @param order      old shown index of child at each new shown index
+     */
+    void onGroupChildrenPermuted(int groupIndex, int[] order) {
+    }
+
+    /**
+     * called when groups are inserted without notifyDataSetChanged() , before the changes are notified
+     */
+    void onGroupRangeInserted(int groupIndexStart, int groupCount) {
+    }
+
+    /**
+     * called when groups are removed without notifyDataSetChanged() , before the changes are notified
+     */
+    void onGroupRangeRemoved(int groupIndexStart, int groupCount) {
+    }
+
+    /**
+     * called when children are inserted without notifyDataSetChanged() , before the changes are notified
+     */
+    void onChildRangeInserted(int groupIndex, int childIndexStart, int childCount) {
+    }
+
+    /**
+     * called when children are removed without notifyDataSetChanged() , before the changes are notified
+     */
+    void onChildRangeRemoved(int groupIndex, int childIndexStart, int childCount) {
+    }
+
+    private Executor getBackgroundExecutor() {
+        if (mBackgroundExecutor != null) {
+            return mBackgroundExecutor;
+        }
+        synchronized (BaseExpandableRecyclerViewAdapter.class) {
+            if (sDefaultBackgroundExecutor == null) {
+                sDefaultBackgroundExecutor = Executors.newSingleThreadExecutor();
+            }
+            return sDefaultBackgroundExecutor;
+        }
+    }
+
+    /**
+     * whether notifyDataSetChanged() is dispatched by a batch of expand status change ,
+     * in which case the data set itself is untouched
+     *
+     * @return whether dispatching
+     */
+    final boolean isDispatchingExpandChange() {
+        return mIsDispatchingExpandChange;
+    }
+
+    /**
+     * whether rows are inserted , removed or moved by the adapter itself ,
+     * otherwise by raw notifyItem*() of subclass , in which case indexes of groups are unknown
+     *
+     * @return whether notifying
+     */
+    final boolean isNotifyingRows() {
+        return mNotifyingRowsDepth > 0;
+    }
+
+    private void notifyRowsInserted(int positionStart, int itemCount) {
+        mNotifyingRowsDepth++;
+        try {
+            notifyItemRangeInserted(positionStart, itemCount);
+        } finally {
+            mNotifyingRowsDepth--;
+        }
+    }
+
+    private void notifyRowsRemoved(int positionStart, int itemCount) {
+        mNotifyingRowsDepth++;
+        try {
+            notifyItemRangeRemoved(positionStart, itemCount);
+        } finally {
+            mNotifyingRowsDepth--;
+        }
+    }
+
+    private void notifyRowMoved(int fromPosition, int toPosition) {
+        mNotifyingRowsDepth++;
+        try {
+            notifyItemMoved(fromPosition, toPosition);
+        } finally {
+            mNotifyingRowsDepth--;
+        }
+    }
+
+    public final boolean foldGroup(GroupBean groupBean) {
+        return foldGroup(getGroupIndex(groupBean));
+    }
+
+    /**
+     * @param groupIndex index of group
+     * @return whether the group is newly folded
+     */
+    public final boolean foldGroup(int groupIndex) {
+        if (!isGroupExpanding(groupIndex)) {
+            return false;
+        }
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        setGroupExpandingInternal(groupIndex, groupBean, false);
+        updatePositionIndex(groupIndex, groupBean);
+        final int position = getAdapterPosition(groupIndex);
+        notifyRowsRemoved(position + 1, getChildRowCount(groupIndex, groupBean));
+        notifyItemChanged(position, EXPAND_PAYLOAD);
+        return true;
+    }
+
+    /**
+     * notify that a group is inserted , the inserted group is folded
+     *
+     * @param groupIndex index of the inserted group
+     */
+    public final void notifyGroupInserted(int groupIndex) {
+        notifyGroupRangeInserted(groupIndex, 1);
+    }
+
+    /**
+     * notify that groups are inserted , the inserted groups are folded
+     *
+     * @param groupIndexStart index of the first inserted group
+     * @param groupCount      num of inserted groups
+     */
+    public final void notifyGroupRangeInserted(int groupIndexStart, int groupCount) {
+        if (groupCount <= 0) {
+            return;
+        }
+        checkGroupsNotPaged();
+        // inserted groups are folded
+        insertBits(mExpandGroupBits, groupIndexStart, groupCount);
+        mChildPager.shiftGroups(groupIndexStart, 0, groupCount);
+        mChildRevealer.shiftGroups(groupIndexStart, 0, groupCount);
+        mPreviewChildCounts = shiftKeys(mPreviewChildCounts, groupIndexStart, 0, groupCount);
+        mChildOrders = shiftKeys(mChildOrders, groupIndexStart, 0, groupCount);
+        onGroupRangeInserted(groupIndexStart, groupCount);
+        final int currentGroupCount = getGroupCount();
+        if (isEmptyStatusSwitched(currentGroupCount - groupCount, currentGroupCount)) {
+            notifyGroupRangeShiftedByDataSetChanged();
+            return;
+        }
+        if (mPositionIndexDirty) {
+            // the rebuilt index already holds the inserted groups
+            getPositionIndex();
+        } else {
+            mPositionIndex.insert(groupIndexStart, groupCount);
+        }
+        onGroupRangeShifted(true, groupIndexStart, groupCount, currentGroupCount);
+        notifyRowsInserted(getAdapterPosition(groupIndexStart), groupCount);
+    }
+
+    /**
+     * notify that a group is removed
+     *
+     * @param groupIndex index of the removed group before removal
+     */
+    public final void notifyGroupRemoved(int groupIndex) {
+        notifyGroupRangeRemoved(groupIndex, 1);
+    }
+
+    /**
+     * notify that groups are removed , with their children
+     *
+     * @param groupIndexStart index of the first removed group before removal
+     * @param groupCount      num of removed groups
+     */
+    public final void notifyGroupRangeRemoved(int groupIndexStart, int groupCount) {
+        if (groupCount <= 0) {
+            return;
+        }
+        checkGroupsNotPaged();
+        final int currentGroupCount = getGroupCount();
+        // drop removed groups from expand status
+        removeBits(mExpandGroupBits, groupIndexStart, groupCount);
+        rebuildExpandGroupKeys();
+        mChildPager.shiftGroups(groupIndexStart, groupCount, -groupCount);
+        mChildRevealer.shiftGroups(groupIndexStart, groupCount, -groupCount);
+        mPreviewChildCounts = shiftKeys(mPreviewChildCounts, groupIndexStart, groupCount, -groupCount);
+        mChildOrders = shiftKeys(mChildOrders, groupIndexStart, groupCount, -groupCount);
+        onGroupRangeRemoved(groupIndexStart, groupCount);
+        if (mPositionIndexDirty || isEmptyStatusSwitched(currentGroupCount + groupCount, currentGroupCount)) {
+            // item count of removed groups is unknown without the old index
+            notifyGroupRangeShiftedByDataSetChanged();
+            return;
+        }
+        // position index still holds the removed groups
+        final int position = mPositionIndex.positionOf(groupIndexStart);
+        final int itemCount = mPositionIndex.positionOf(groupIndexStart + groupCount) - position;
+        mPositionIndex.remove(groupIndexStart, groupCount);
+        onGroupRangeShifted(false, groupIndexStart, groupCount, currentGroupCount);
+        notifyRowsRemoved(mHeaderViewProducer != null ? position + 1 : position, itemCount);
+    }
+
+    /**
+     * notify that the group item changed , its children are not affected ,
+     * see {@link #notifyGroupChanged(int, Object)}
+     *
+     * @param groupIndex index of the changed group
+     */
+    public final void notifyGroupChanged(int groupIndex) {
+        notifyGroupChanged(groupIndex, null);
+    }
+
+    /**
+     * notify that the group item changed , its children are not affected.
+     * The GroupBean at groupIndex may be a new one replacing the old , which keeps the expand status ,
+     * if it is expanding and has a different num of children , rows below it are inserted or removed accordingly
+     *
+     * @param groupIndex index of the changed group
+     * @param payload    payload for partial update
+     */
+    public final void notifyGroupChanged(int groupIndex, Object payload) {
+        onGroupReplaced(groupIndex);
+        final int[] childOrder = mChildOrders.get(groupIndex);
+        if (childOrder != null && childOrder.length != getGroupItem(groupIndex).getChildCount()) {
+            // the order does not fit children of the replacing group
+            clearChildOrder(groupIndex);
+        }
+        if (!isGroupExpanding(groupIndex)) {
+            notifyItemChanged(getAdapterPosition(groupIndex), payload);
+            return;
+        }
+        // the replaced group may have another id
+        rebuildExpandGroupKeys();
+        if (mPositionIndexDirty || groupIndex >= mPositionIndex.size()) {
+            // rows are rebound by the pending notifyDataSetChanged()
+            notifyItemChanged(getAdapterPosition(groupIndex), payload);
+            return;
+        }
+        final int oldRowCount = mPositionIndex.get(groupIndex);
+        updatePositionIndex(groupIndex, getGroupItem(groupIndex));
+        final int rowCount = mPositionIndex.get(groupIndex);
+        final int position = getAdapterPosition(groupIndex);
+        notifyItemChanged(position, payload);
+        if (rowCount > oldRowCount) {
+            notifyRowsInserted(position + oldRowCount, rowCount - oldRowCount);
+        } else if (rowCount < oldRowCount) {
+            notifyRowsRemoved(position + rowCount, oldRowCount - rowCount);
+        }
+    }
+
+    /**
+     * map the group at groupIndex , which may be a new GroupBean replacing the old one
+     */
+    private void onGroupReplaced(int groupIndex) {
+        mGroupIndexMapVerified = false;
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        if (mGroupIndexMapDirty || groupBean == null) {
+            return;
+        }
+        // entry of the replaced GroupBean is left , lookups verify the group at the mapped index
+        final Integer index = mGroupIndexMap.get(groupBean);
+        if (index == null || index > groupIndex || lookUpGroupIndex(groupBean, index) < 0) {
+            mGroupIndexMap.put(groupBean, groupIndex);
+        }
+    }
+
+    /**
+     * notify that a child is inserted , nothing is notified if the group is folded
+     *
+     * @param groupIndex index of the group
+     * @param childIndex index of the inserted child
+     */
+    public final void notifyChildInserted(int groupIndex, int childIndex) {
+        notifyChildRangeInserted(groupIndex, childIndex, 1);
+    }
+
+    /**
+     * notify that children are inserted , nothing is notified if the group is folded
+     *
+     * @param groupIndex      index of the group
+     * @param childIndexStart index of the first inserted child
+     * @param childCount      num of inserted children
+     */
+    public final void notifyChildRangeInserted(int groupIndex, int childIndexStart, int childCount) {
+        if (childCount <= 0) {
+            return;
+        }
+        checkChildrenNotPaged();
+        final int oldChildCount = getChildCount(groupIndex, getGroupItem(groupIndex)) - childCount;
+        final int oldShownChildCount = getShownChildCount(groupIndex, oldChildCount);
+        unsortChildren(groupIndex, oldShownChildCount);
+        onChildRangeInserted(groupIndex, childIndexStart, childCount);
+        final int oldFooterType = getFooterType(groupIndex, oldChildCount);
+        mChildRevealer.onChildRangeShifted(groupIndex, childIndexStart, childCount, true);
+        if (onChildRangeShifted(groupIndex)) {
+            notifyChildRowsShifted(groupIndex, childIndexStart, childCount, true, oldShownChildCount, oldFooterType);
+        }
+    }
+
+    /**
+     * show children of a sorted group in the order of GroupBean again , so that child indexes in GroupBean can be shifted
+     */
+    private void unsortChildren(int groupIndex, int shownChildCount) {
+        if (clearChildOrder(groupIndex) && isGroupExpanding(groupIndex) && shownChildCount > 0) {
+            notifyItemRangeChanged(getAdapterPosition(groupIndex) + 1, shownChildCount);
+        }
+    }
+
+    /**
+     * notify that a child is removed , nothing is notified if the group is folded
+     *
+     * @param groupIndex index of the group
+     * @param childIndex index of the removed child before removal
+     */
+    public final void notifyChildRemoved(int groupIndex, int childIndex) {
+        notifyChildRangeRemoved(groupIndex, childIndex, 1);
+    }
+
+    /**
+     * notify that children are removed , nothing is notified if the group is folded
+     *
+     * @param groupIndex      index of the group
+     * @param childIndexStart index of the first removed child before removal
+     * @param childCount      num of removed children
+     */
+    public final void notifyChildRangeRemoved(int groupIndex, int childIndexStart, int childCount) {
+        if (childCount <= 0) {
+            return;
+        }
+        checkChildrenNotPaged();
+        final int oldChildCount = getChildCount(groupIndex, getGroupItem(groupIndex)) + childCount;
+        final int oldShownChildCount = getShownChildCount(groupIndex, oldChildCount);
+        unsortChildren(groupIndex, oldShownChildCount);
+        onChildRangeRemoved(groupIndex, childIndexStart, childCount);
+        final int oldFooterType = getFooterType(groupIndex, oldChildCount);
+        mChildRevealer.onChildRangeShifted(groupIndex, childIndexStart, childCount, false);
+        if (onChildRangeShifted(groupIndex)) {
+            notifyChildRowsShifted(groupIndex, childIndexStart, childCount, false, oldShownChildCount, oldFooterType);
+        }
+    }
+
+    /**
+     * notify that a child changed , nothing is notified if the group is folded
+     *
+     * @param groupIndex index of the group
+     * @param childIndex index of the changed child
+     */
+    public final void notifyChildChanged(int groupIndex, int childIndex) {
+        notifyChildRangeChanged(groupIndex, childIndex, 1, null);
+    }
+
+    /**
+     * notify that a child changed , nothing is notified if the group is folded
+     *
+     * @param groupIndex index of the group
+     * @param childIndex index of the changed child
+     * @param payload    payload for partial update
+     */
+    public final void notifyChildChanged(int groupIndex, int childIndex, Object payload) {
+        notifyChildRangeChanged(groupIndex, childIndex, 1, payload);
+    }
+
+    /**
+     * notify that children changed , nothing is notified if the group is folded
+     *
+     * @param groupIndex      index of the group
+     * @param childIndexStart index of the first changed child
+     * @param childCount      num of changed children
+     * @param payload         payload for partial update
+     */
+    public final void notifyChildRangeChanged(int groupIndex, int childIndexStart, int childCount, Object payload) {
+        if (childCount <= 0 || !isGroupExpanding(groupIndex)) {
+            return;
+        }
+        // hidden children are bound when revealed
+        final int shownChildCount = getShownChildCount(groupIndex, getGroupItem(groupIndex));
+        final int[] childOrder = mChildOrders.get(groupIndex);
+        if (childOrder != null) {
+            // changed children are scattered among shown rows of a sorted group
+            final int childPositionStart = getAdapterPosition(groupIndex) + 1;
+            for (int i = 0; i < shownChildCount; i++) {
+                if (childOrder[i] >= childIndexStart && childOrder[i] < childIndexStart + childCount) {
+                    notifyItemChanged(childPositionStart + i, payload);
+                }
+            }
+            return;
+        }
+        childCount = Math.min(childIndexStart + childCount, shownChildCount) - childIndexStart;
+        if (childCount > 0) {
+            notifyItemRangeChanged(getAdapterPosition(groupIndex) + childIndexStart + 1, childCount, payload);
+        }
+    }
+
+    /**
+     * shift bits at and after start forward by count , leaving [start, start + count) cleared
+     */
+    static void insertBits(BitSet bits, int start, int count) {
+        final BitSet tail = bits.get(start, Math.max(start, bits.length()));
+        bits.clear(start, Math.max(start, bits.length()));
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            bits.set(start + count + i);
+        }
+    }
+
+    /**
+     * drop bits in [start, start + count) , shifting the following bits backward
+     */
+    static void removeBits(BitSet bits, int start, int count) {
+        final BitSet tail = bits.get(start + count, Math.max(start + count, bits.length()));
+        bits.clear(start, Math.max(start, bits.length()));
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            bits.set(start + i);
+        }
+    }
+
+    /**
+     * move keys at and after start by offset , and drop keys in [start, start + removedCount)
+     *
+     * @return shifted copy of array
+     */
+    static <T> SparseArray<T> shiftKeys(SparseArray<T> array, int start, int removedCount, int offset) {
+        final SparseArray<T> result = new SparseArray<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            final int key = array.keyAt(i);
+            if (key < start) {
+                result.append(key, array.valueAt(i));
+            } else if (key >= start + removedCount) {
+                result.append(key + offset, array.valueAt(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param indexes new key of each old key
+     * @return copy of array with permuted keys
+     */
+    static <T> SparseArray<T> permuteKeys(SparseArray<T> array, int[] indexes) {
+        final SparseArray<T> result = new SparseArray<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            result.put(indexes[array.keyAt(i)], array.valueAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * same as {@link #permuteKeys(SparseArray, int[])} for int values
+     */
+    static SparseIntArray permuteKeys(SparseIntArray array, int[] indexes) {
+        final SparseIntArray result = new SparseIntArray(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            result.put(indexes[array.keyAt(i)], array.valueAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * same as {@link #shiftKeys(SparseArray, int, int, int)} for int values
+     */
+    static SparseIntArray shiftKeys(SparseIntArray array, int start, int removedCount, int offset) {
+        final SparseIntArray result = new SparseIntArray(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            final int key = array.keyAt(i);
+            if (key < start) {
+                result.append(key, array.valueAt(i));
+            } else if (key >= start + removedCount) {
+                result.append(key + offset, array.valueAt(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * sync bookkeeping after groups are inserted or removed
+     */
+    private void onGroupRangeShifted(boolean isInserted, int groupIndexStart, int groupCount, int currentGroupCount) {
+        mStructureVersion++;
+        mDataSetVersion++;
+        mGroupIndexMapVerified = false;
+        if (isInserted && !mGroupIndexMapDirty && groupIndexStart + groupCount == currentGroupCount) {
+            // groups appended , indexes of other groups are not shifted
+            for (int i = groupIndexStart; i < currentGroupCount; i++) {
+                final GroupBean groupBean = getGroupItem(i);
+                if (!mGroupIndexMap.containsKey(groupBean)) {
+                    mGroupIndexMap.put(groupBean, i);
+                }
+            }
+        } else {
+            mGroupIndexMapDirty = true;
+        }
+    }
+
+    /**
+     * rebind all rows by notifyDataSetChanged() after the rows of groups changed , expand and check status are kept as they are
+     */
+    private void notifyAllRowsChanged() {
+        invalidatePositionIndex();
+        mIsDispatchingExpandChange = true;
+        try {
+            notifyDataSetChanged();
+        } finally {
+            mIsDispatchingExpandChange = false;
+        }
+    }
+
+    /**
+     * notify groups inserted , removed or reordered by notifyDataSetChanged() ,
+     * expand and check status are already shifted , so they are kept instead of being matched again
+     */
+    private void notifyGroupRangeShiftedByDataSetChanged() {
+        mStructureVersion++;
+        mDataSetVersion++;
+        mGroupIndexMapDirty = true;
+        invalidatePositionIndex();
+        mIsDispatchingExpandChange = true;
+        try {
+            notifyDataSetChanged();
+        } finally {
+            mIsDispatchingExpandChange = false;
+        }
+    }
+
+    /**
+     * sync bookkeeping after children of a group are inserted or removed
+     *
+     * @return whether the group is expanding
+     */
+    private boolean onChildRangeShifted(int groupIndex) {
+        mDataSetVersion++;
+        updatePositionIndex(groupIndex, getGroupItem(groupIndex));
+        return isGroupExpanding(groupIndex);
+    }
+
+    /**
+     * notify rows of an expanding group after its children are inserted or removed ,
+     * only shown children are notified , the rest shown or hidden by limit of shown children are notified at the end
+     *
+     * @param oldShownChildCount num of shown children before change
+     * @param oldFooterType      type of footer row before change
+     */
+    private void notifyChildRowsShifted(int groupIndex, int childIndexStart, int childCount, boolean isInserted,
+                                        int oldShownChildCount, int oldFooterType) {
+        final int shownChildCount = getShownChildCount(groupIndex, getGroupItem(groupIndex));
+        final int firstChildPosition = getAdapterPosition(groupIndex) + 1;
+        int rowCount;
+        if (isInserted) {
+            final int insertedCount = Math.max(0, Math.min(childIndexStart + childCount, shownChildCount) - childIndexStart);
+            if (insertedCount > 0) {
+                notifyRowsInserted(firstChildPosition + childIndexStart, insertedCount);
+            }
+            rowCount = oldShownChildCount + insertedCount;
+        } else {
+            final int removedCount = Math.max(0, Math.min(childIndexStart + childCount, oldShownChildCount) - childIndexStart);
+            if (removedCount > 0) {
+                notifyRowsRemoved(firstChildPosition + childIndexStart, removedCount);
+            }
+            rowCount = oldShownChildCount - removedCount;
+        }
+        if (rowCount > shownChildCount) {
+            // pushed out of the limit
+            notifyRowsRemoved(firstChildPosition + shownChildCount, rowCount - shownChildCount);
+        } else if (rowCount < shownChildCount) {
+            // hidden children move into the limit
+            notifyRowsInserted(firstChildPosition + rowCount, shownChildCount - rowCount);
+        }
+        notifyFooterChanged(firstChildPosition + shownChildCount, oldFooterType, getFooterType(groupIndex));
+    }
+
+    /**
+     * notify rows of an expanding group after more children are shown , the footer row is kept below the shown children
+     *
+     * @param oldShownChildCount num of shown children before change
+     * @param oldFooterType      type of footer row before change
+     */
+    private void notifyShownChildrenAppended(int groupIndex, int oldShownChildCount, int oldFooterType) {
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        updatePositionIndex(groupIndex, groupBean);
+        final int position = getAdapterPosition(groupIndex) + 1 + oldShownChildCount;
+        final int appendedCount = getShownChildCount(groupIndex, groupBean) - oldShownChildCount;
+        if (appendedCount > 0) {
+            notifyRowsInserted(position, appendedCount);
+        }
+        notifyFooterChanged(position + Math.max(0, appendedCount), oldFooterType, getFooterType(groupIndex));
+    }
+
+    /**
+     * notify shown children of a group replaced as a whole , with its footer
+     *
+     * @param childPositionStart adapter position of the first child
+     */
+    private void notifyShownChildrenReplaced(int childPositionStart, int oldShownChildCount, int shownChildCount,
+                                             int oldFooterType, int footerType) {
+        final int changedCount = Math.min(oldShownChildCount, shownChildCount);
+        if (changedCount > 0) {
+            notifyItemRangeChanged(childPositionStart, changedCount);
+        }
+        if (shownChildCount > oldShownChildCount) {
+            notifyRowsInserted(childPositionStart + changedCount, shownChildCount - oldShownChildCount);
+        } else if (shownChildCount < oldShownChildCount) {
+            notifyRowsRemoved(childPositionStart + changedCount, oldShownChildCount - shownChildCount);
+        }
+        notifyFooterChanged(childPositionStart + shownChildCount, oldFooterType, footerType);
+    }
+
+    private void notifyFooterChanged(int footerPosition, int oldFooterType, int footerType) {
+        if (oldFooterType == FOOTER_NONE) {
+            if (footerType != FOOTER_NONE) {
+                notifyRowsInserted(footerPosition, 1);
+            }
+        } else if (footerType == FOOTER_NONE) {
+            notifyRowsRemoved(footerPosition, 1);
+        } else {
+            // rebind the footer , so that the loading row loads the next page if it is still visible
+            notifyItemChanged(footerPosition);
+        }
+    }
+
+    private boolean isEmptyStatusSwitched(int oldGroupCount, int newGroupCount) {
+        return mEmptyViewProducer != null && (oldGroupCount == 0) != (newGroupCount == 0);
+    }
+
+    @Override
+    public final int getItemCount() {
+        int result = getGroupCount();
+        if (result == 0 && mEmptyViewProducer != null) {
+            mIsEmpty = true;
+            return mHeaderViewProducer != null && mShowHeaderViewWhenEmpty ? 2 : 1;
+        }
+        mIsEmpty = false;
+        result = getPositionIndex().total();
+        if (mDebugEnabled) {
+            checkItemCount(result);
+        }
+        if (mHeaderViewProducer != null) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * recount items from scratch and compare with the cached one
+     *
+     * @param cachedCount item count from position index , excluding header
+     */
+    private void checkItemCount(int cachedCount) {
+        final int groupCount = getGroupCount();
+        int result = groupCount;
+        for (int i = mExpandGroupBits.nextSetBit(0); i >= 0; i = mExpandGroupBits.nextSetBit(i + 1)) {
+            if (i >= groupCount) {
+                Log.e(TAG, "invalid index in expandgroupList : " + i);
+                break;
+            }
+            result += getChildRowCount(i, getGroupItem(i));
+        }
+        if (result != cachedCount) {
+            throw new IllegalStateException(
+                    String.format(Locale.getDefault(), "Inconsistent item count : cached [%d] , actual [%d] , notifyDataSetChanged() may be missing", cachedCount, result));
+        }
+    }
+
+    public final int getAdapterPosition(int groupIndex) {
+        int result = getPositionIndex().positionOf(groupIndex);
+        if (mHeaderViewProducer != null) {
+            result++;
+        }
+        return result;
+    }
+
+    public final int getGroupIndex(@NonNull GroupBean groupBean) {
+        if (mGroupIndexHint >= 0 && mGroupIndexHint < getGroupCount() && getGroupItem(mGroupIndexHint) == groupBean) {
+            return mGroupIndexHint;
+        }
+        ensureGroupIndexMap();
+        int result = lookUpGroupIndex(groupBean, mGroupIndexMap.get(groupBean));
+        // the map is in sync with notified changes , rebuild it once in case groups are replaced without notifying ,
+        // later misses are answered by the map until groups change again
+        if (result < 0 && !mGroupIndexMapVerified && mPagedGroupList == null) {
+            mGroupIndexMapDirty = true;
+            ensureGroupIndexMap();
+            result = lookUpGroupIndex(groupBean, mGroupIndexMap.get(groupBean));
+        }
+        return result;
+    }
+
+    /**
+     * @param groupIndex index of group
+     * @param childBean  child
+     * @return index of childBean in the group , or -1 if not found
+     */
+    final int getChildIndex(int groupIndex, ChildBean childBean) {
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        final int childCount = getChildCount(groupIndex, groupBean);
+        if (mChildIndexHint >= 0 && mChildIndexHint < childCount && getChildItem(groupBean, groupIndex, mChildIndexHint) == childBean) {
+            return mChildIndexHint;
+        }
+        for (int i = 0; i < childCount; i++) {
+            final ChildBean child = getChildItem(groupBean, groupIndex, i);
+            if (child == null ? childBean == null : child.equals(childBean)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param index index of groupBean in group-index map , or null if not mapped
+     */
+    private int lookUpGroupIndex(GroupBean groupBean, Integer index) {
+        if (index == null || index >= getGroupCount()) {
+            return -1;
+        }
+        final GroupBean mappedGroup = getGroupItem(index);
+        if (mappedGroup != groupBean && !groupBean.equals(mappedGroup)) {
+            return -1;
+        }
+        mGroupIndexHint = index;
+        return index;
+    }
+
+    /**
+     * rebuild group-index map if outdated
+     */
+    private void ensureGroupIndexMap() {
+        final int groupCount = getGroupCount();
+        if (!mGroupIndexMapDirty && mGroupIndexMap.size() <= groupCount) {
+            return;
+        }
+        mGroupIndexMap.clear();
+        // iterate backwards so that equal groups are mapped to the first index
+        for (int i = groupCount - 1; i >= 0; i--) {
+            final GroupBean groupBean = getGroupItem(i);
+            if (groupBean != null) {
+                mGroupIndexMap.put(groupBean, i);
+            }
+        }
+        mGroupIndexMapDirty = false;
+        mGroupIndexMapVerified = true;
+    }
+
+    @Override
+    public final int getItemViewType(int position) {
+        if (mIsEmpty) {
+            return position == 0 && mShowHeaderViewWhenEmpty && mHeaderViewProducer != null ? TYPE_HEADER : TYPE_EMPTY;
+        }
+        if (position == 0 && mHeaderViewProducer != null) {
+            return TYPE_HEADER;
+        }
+        final long coord = translateToCoord(position);
+        final int groupIndex = getGroupIndexFromCoord(coord);
+        GroupBean groupBean = getGroupItem(groupIndex);
+        final int childIndex = getChildIndexFromCoord(coord);
+        if (childIndex < 0) {
+            if (groupBean == null) {
+                return TYPE_PLACEHOLDER;
+            }
+            int groupType = getGroupType(groupBean);
+            if ((groupType & TYPE_MASK) == 0) {
+                return groupType | TYPE_GROUP;
+            } else {
+                throw new IllegalStateException(
+                        String.format(Locale.getDefault(), "GroupType [%d] conflits with MASK [%d]", groupType, TYPE_MASK));
+            }
+        } else if (childIndex >= getShownChildCount(groupIndex, groupBean)) {
+            return getFooterType(groupIndex) == FOOTER_SHOW_MORE ? TYPE_SHOW_MORE : TYPE_LOADING;
+        } else {
+            int childType = getChildType(groupBean, getChildItem(groupBean, groupIndex, childIndex));
+            if ((childType & TYPE_MASK) == 0) {
+                return childType | TYPE_CHILD;
+            } else {
+                throw new IllegalStateException(
+                        String.format(Locale.getDefault(), "ChildType [%d] conflits with MASK [%d]", childType, TYPE_MASK));
+            }
+        }
+    }
+
+
+    /**
+     * combine {@link #getGroupId(BaseGroupBean)} and {@link #getChildId(BaseGroupBean, Object)} into item id ,
+     * the same as {@link android.widget.ExpandableListAdapter#getCombinedChildId(long, long)}
+     *
+     * @throws IllegalArgumentException if an id is out of the range documented by its hook
+     */
+    @Override
+    public long getItemId(int position) {
+        if (mIsEmpty) {
+            return position == 0 && mShowHeaderViewWhenEmpty && mHeaderViewProducer != null ? ITEM_ID_HEADER : ITEM_ID_EMPTY;
+        }
+        if (position == 0 && mHeaderViewProducer != null) {
+            return ITEM_ID_HEADER;
+        }
+        final long coord = translateToCoord(position);
+        final int groupIndex = getGroupIndexFromCoord(coord);
+        if (groupIndex < 0) {
+            return RecyclerView.NO_ID;
+        }
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        if (groupBean == null) {
+            return getCombinedGroupId(groupIndex) | ITEM_ID_GROUP_PLACEHOLDER;
+        }
+        final long groupId = getGroupId(groupBean);
+        if (groupId == RecyclerView.NO_ID) {
+            return RecyclerView.NO_ID;
+        }
+        final int childIndex = getChildIndexFromCoord(coord);
+        if (childIndex < 0) {
+            return getCombinedGroupId(groupId);
+        }
+        if (childIndex >= getShownChildCount(groupIndex, groupBean)) {
+            return getCombinedGroupId(groupId) | ITEM_ID_GROUP_FOOTER;
+        }
+        final long childId = getChildId(groupBean, getChildItem(groupBean, groupIndex, childIndex));
+        if (childId == RecyclerView.NO_ID) {
+            return RecyclerView.NO_ID;
+        }
+        return getCombinedChildId(groupId, childId);
+    }
+
+    private static long getCombinedGroupId(long groupId) {
+        if (groupId < 0 || groupId > 0x7FFFFFFFL) {
+            throw new IllegalArgumentException("group id " + groupId + " is out of range [0, 0x7FFFFFFF]");
+        }
+        return groupId << 32;
+    }
+
+    private static long getCombinedChildId(long groupId, long childId) {
+        if (childId < 0 || childId > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("child id " + childId + " is out of range [0, 0xFFFFFFFF]");
+        }
+        return 0x8000000000000000L | getCombinedGroupId(groupId) | childId;
+    }
+
+    @Override
+    public final RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        switch (viewType & TYPE_MASK) {
+            case TYPE_EMPTY:
+                return mEmptyViewProducer.onCreateViewHolder(parent);
+            case TYPE_HEADER:
+                return mHeaderViewProducer.onCreateViewHolder(parent);
+            case TYPE_LOADING:
+                return mChildPager.getLoadingViewProducer().onCreateViewHolder(parent);
+            case TYPE_PLACEHOLDER:
+                return mPlaceholderViewProducer.onCreateViewHolder(parent);
+            case TYPE_SHOW_MORE:
+                final RecyclerView.ViewHolder showMoreViewHolder = mShowMoreViewProducer.onCreateViewHolder(parent);
+                onShowMoreViewHolderCreated(showMoreViewHolder);
+                return showMoreViewHolder;
             case TYPE_CHILD:
-                return onCreateChildViewHolder(parent, viewType ^ TYPE_CHILD);
+                final ChildViewHolder childViewHolder = onCreateChildViewHolder(parent, viewType ^ TYPE_CHILD);
+                onChildViewHolderCreated(childViewHolder);
+                return childViewHolder;
             case TYPE_GROUP:
-                return onCreateGroupViewHolder(parent, viewType ^ TYPE_GROUP);
+                final GroupViewHolder groupViewHolder = onCreateGroupViewHolder(parent, viewType ^ TYPE_GROUP);
+                onGroupViewHolderCreated(groupViewHolder);
+                return groupViewHolder;
             default:
                 throw new IllegalStateException(
                         String.format(Locale.getDefault(), "Illegal view type : viewType[%d]", viewType));
@@ -316,13 +2444,28 @@ public abstract class BaseExpandableRecyclerViewAdapter
             case TYPE_HEADER:
                 mHeaderViewProducer.onBindViewHolder(holder);
                 break;
+            case TYPE_LOADING:
+                mChildPager.getLoadingViewProducer().onBindViewHolder(holder);
+                onLoadingRowBound(getGroupIndexFromCoord(translateToCoord(position)));
+                break;
+            case TYPE_SHOW_MORE:
+                mShowMoreViewProducer.onBindViewHolder(holder);
+                break;
+            case TYPE_PLACEHOLDER:
+                mPlaceholderViewProducer.onBindViewHolder(holder);
+                loadGroupsAround(getGroupIndexFromCoord(translateToCoord(position)));
+                break;
             case TYPE_CHILD:
-                final int[] childCoord = translateToDoubleIndex(position);
-                GroupBean groupBean = getGroupItem(childCoord[0]);
-                bindChildViewHolder((ChildViewHolder) holder, groupBean, groupBean.getChildAt(childCoord[1]), payloads);
+                final long childCoord = translateToCoord(position);
+                mGroupIndexHint = getGroupIndexFromCoord(childCoord);
+                mChildIndexHint = getChildIndexFromCoord(childCoord);
+                GroupBean groupBean = getGroupItem(mGroupIndexHint);
+                bindChildViewHolder((ChildViewHolder) holder, groupBean, getChildItem(groupBean, mGroupIndexHint, mChildIndexHint), payloads);
                 break;
             case TYPE_GROUP:
-                bindGroupViewHolder((GroupViewHolder) holder, getGroupItem(translateToDoubleIndex(position)[0]), payloads);
+                mGroupIndexHint = getGroupIndexFromCoord(translateToCoord(position));
+                loadGroupsAround(mGroupIndexHint);
+                bindGroupViewHolder((GroupViewHolder) holder, getGroupItem(mGroupIndexHint), payloads);
                 break;
             default:
                 throw new IllegalStateException(
@@ -330,7 +2473,7 @@ public abstract class BaseExpandableRecyclerViewAdapter
         }
     }
 
-    protected void bindGroupViewHolder(final GroupViewHolder holder, final GroupBean groupBean, List<Object> payload) {
+    protected void bindGroupViewHolder(GroupViewHolder holder, GroupBean groupBean, List<Object> payload) {
         if (payload != null && payload.size() != 0) {
             if (payload.contains(EXPAND_PAYLOAD)) {
                 holder.onExpandStatusChanged(BaseExpandableRecyclerViewAdapter.this, isGroupExpanding(groupBean));
@@ -341,58 +2484,116 @@ public abstract class BaseExpandableRecyclerViewAdapter
             onBindGroupViewHolder(holder, groupBean, isGroupExpanding(groupBean), payload);
             return;
         }
+        onBindGroupViewHolder(holder, groupBean, isGroupExpanding(groupBean));
+    }
+
+    protected void bindChildViewHolder(ChildViewHolder holder, GroupBean groupBean, ChildBean childBean, List<Object> payload) {
+        onBindChildViewHolder(holder, groupBean, childBean, payload);
+    }
+
+    /**
+     * attach listeners once the holder is created ,
+     * which resolve the bound item by the adapter position of the holder when triggered
+     *
+     * @param holder created group holder
+     */
+    void onGroupViewHolderCreated(final GroupViewHolder holder) {
         holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
             @Override
             public boolean onLongClick(View v) {
-                if (mListener != null) {
+                final int groupIndex = getGroupIndexFromCoord(translateToCoord(holder.getAdapterPosition()));
+                // group of a holder not rebound yet may be evicted by PagedGroupList
+                final GroupBean groupBean = groupIndex >= 0 ? getGroupItem(groupIndex) : null;
+                if (mListener != null && groupBean != null) {
                     return mListener.onGroupLongClicked(groupBean);
                 }
                 return false;
             }
         });
-        if (!groupBean.isExpandable()) {
-            holder.itemView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    if (mListener != null) {
-                        mListener.onGroupClicked(groupBean);
-                    }
-                }
-            });
-        } else {
-            holder.itemView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    final boolean isExpand = mExpandGroupSet.contains(groupBean);
-                    if (mListener == null || !mListener.onInterceptGroupExpandEvent(groupBean, isExpand)) {
-                        final int adapterPosition = holder.getAdapterPosition();
-                        holder.onExpandStatusChanged(BaseExpandableRecyclerViewAdapter.this, !isExpand);
-                        if (isExpand) {
-                            mExpandGroupSet.remove(groupBean);
-                            notifyItemRangeRemoved(adapterPosition + 1, groupBean.getChildCount());
-                        } else {
-                            mExpandGroupSet.add(groupBean);
-                            notifyItemRangeInserted(adapterPosition + 1, groupBean.getChildCount());
-                        }
-                    }
-                }
-            });
+        holder.itemView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                onGroupItemClicked(holder);
+            }
+        });
+    }
+
+    /**
+     * attach the click listener once the show more holder is created ,
+     * which resolves the group by the adapter position of the holder when triggered
+     *
+     * @param holder created show more holder
+     */
+    private void onShowMoreViewHolderCreated(final RecyclerView.ViewHolder holder) {
+        holder.itemView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                onShowMoreClicked(getGroupIndexFromCoord(translateToCoord(holder.getAdapterPosition())));
+            }
+        });
+    }
+
+    private void onShowMoreClicked(int groupIndex) {
+        if (groupIndex < 0 || !isGroupExpanding(groupIndex) || getFooterType(groupIndex) != FOOTER_SHOW_MORE) {
+            return;
         }
-        onBindGroupViewHolder(holder, groupBean, isGroupExpanding(groupBean));
+        final int oldShownChildCount = getShownChildCount(groupIndex, getGroupItem(groupIndex));
+        mPreviewChildCounts.put(groupIndex, mPreviewChildCounts.get(groupIndex, mPreviewChildCount) + mShowMoreChildCount);
+        notifyShownChildrenAppended(groupIndex, oldShownChildCount, FOOTER_SHOW_MORE);
     }
 
-    protected void bindChildViewHolder(ChildViewHolder holder, final GroupBean groupBean, final ChildBean childBean, List<Object> payload) {
-        onBindChildViewHolder(holder, groupBean, childBean, payload);
+    /**
+     * attach listeners once the holder is created ,
+     * which resolve the bound item by the adapter position of the holder when triggered
+     *
+     * @param holder created child holder
+     */
+    void onChildViewHolderCreated(final ChildViewHolder holder) {
         holder.itemView.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (mListener != null) {
-                    mListener.onChildClicked(groupBean, childBean);
+                final long coord = translateToCoord(holder.getAdapterPosition());
+                final int childIndex = getChildIndexFromCoord(coord);
+                if (mListener != null && childIndex >= 0) {
+                    final int groupIndex = getGroupIndexFromCoord(coord);
+                    final GroupBean groupBean = getGroupItem(groupIndex);
+                    mListener.onChildClicked(groupBean, getChildItem(groupBean, groupIndex, childIndex));
                 }
             }
         });
     }
 
+    private void onGroupItemClicked(GroupViewHolder holder) {
+        final int adapterPosition = holder.getAdapterPosition();
+        final int groupIndex = getGroupIndexFromCoord(translateToCoord(adapterPosition));
+        if (groupIndex < 0) {
+            return;
+        }
+        mGroupIndexHint = groupIndex;
+        final GroupBean groupBean = getGroupItem(groupIndex);
+        if (groupBean == null) {
+            // evicted by PagedGroupList , the holder is rebound as placeholder
+            return;
+        }
+        if (!groupBean.isExpandable()) {
+            if (mListener != null) {
+                mListener.onGroupClicked(groupBean);
+            }
+            return;
+        }
+        final boolean isExpand = isGroupExpanding(groupIndex);
+        if (mListener == null || !mListener.onInterceptGroupExpandEvent(groupBean, isExpand)) {
+            holder.onExpandStatusChanged(BaseExpandableRecyclerViewAdapter.this, !isExpand);
+            setGroupExpandingInternal(groupIndex, groupBean, !isExpand);
+            updatePositionIndex(groupIndex, groupBean);
+            if (isExpand) {
+                notifyRowsRemoved(adapterPosition + 1, getChildRowCount(groupIndex, groupBean));
+            } else {
+                notifyRowsInserted(adapterPosition + 1, getChildRowCount(groupIndex, groupBean));
+            }
+        }
+    }
+
     /**
      * position translation
      * from adapterPosition to group-child coord
@@ -401,34 +2602,374 @@ public abstract class BaseExpandableRecyclerViewAdapter
      * @return int[]{groupIndex,childIndex}
      */
     protected final int[] translateToDoubleIndex(int adapterPosition) {
+        final long coord = translateToCoord(adapterPosition);
+        return new int[]{getGroupIndexFromCoord(coord), getChildIndexFromCoord(coord)};
+    }
+
+    /**
+     * position translation without allocation
+     * from adapterPosition to group-child coord packed in a long
+     *
+     * @param adapterPosition adapterPosition
+     * @return packed coord , unpack it by {@link #getGroupIndexFromCoord(long)} and {@link #getChildIndexFromCoord(long)}
+     */
+    protected final long translateToCoord(int adapterPosition) {
         if (mHeaderViewProducer != null) {
             adapterPosition--;
         }
-        final int[] result = new int[]{-1, -1};
+        if (adapterPosition < 0) {
+            return NO_COORD;
+        }
+        final GroupPositionIndex positionIndex = getPositionIndex();
+        final int groupIndex = positionIndex.groupAt(adapterPosition);
+        if (groupIndex >= positionIndex.size()) {
+            return NO_COORD;
+        }
+        return packCoord(groupIndex, adapterPosition - positionIndex.positionOf(groupIndex) - 1);
+    }
+
+    /**
+     * @param coord coord from {@link #translateToCoord(int)}
+     * @return groupIndex , -1 if the position is not related to any group
+     */
+    protected static int getGroupIndexFromCoord(long coord) {
+        return (int) (coord >> 32);
+    }
+
+    /**
+     * @param coord coord from {@link #translateToCoord(int)}
+     * @return childIndex , -1 if the position is a group item
+     */
+    protected static int getChildIndexFromCoord(long coord) {
+        return (int) coord;
+    }
+
+    static long packCoord(int groupIndex, int childIndex) {
+        return ((long) groupIndex << 32) | (childIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * get the position index , rebuild it if outdated
+     *
+     * @return up-to-date position index
+     */
+    private GroupPositionIndex getPositionIndex() {
         final int groupCount = getGroupCount();
-        int adaptePositionCursor = 0;
-        for (int groupCursor = 0; groupCursor < groupCount; groupCursor++) {
-            if (adaptePositionCursor == adapterPosition) {
-                result[0] = groupCursor;
-                result[1] = -1;
-                break;
+        if (mPositionIndexDirty || mPositionIndex.size() != groupCount) {
+            mPositionIndex.reset(groupCount);
+            for (int i = mExpandGroupBits.nextSetBit(0); i >= 0 && i < groupCount; i = mExpandGroupBits.nextSetBit(i + 1)) {
+                mPositionIndex.set(i, getChildRowCount(i, getGroupItem(i)) + 1);
+            }
+            mPositionIndexDirty = false;
+        }
+        return mPositionIndex;
+    }
+
+    private void invalidatePositionIndex() {
+        mPositionIndexDirty = true;
+        mStructureVersion++;
+    }
+
+    /**
+     * sync the item count of a group to the position index after its expand status changed
+     *
+     * @param groupIndex index of group
+     * @param groupBean  related GroupBean
+     */
+    private void updatePositionIndex(int groupIndex, GroupBean groupBean) {
+        mStructureVersion++;
+        if (mPositionIndexDirty || groupIndex < 0 || groupIndex >= mPositionIndex.size()) {
+            return;
+        }
+        mPositionIndex.set(groupIndex, isGroupExpanding(groupIndex) ? getChildRowCount(groupIndex, groupBean) + 1 : 1);
+    }
+
+    /**
+     * @param groupIndex index of group
+     * @param childIndex index of child as shown , differs from index in GroupBean after {@link #sortChildren(BaseGroupBean, Comparator)}
+     * @return child of the group , from {@link ChildPageLoader} if set , otherwise from GroupBean ,
+     * null if the child is not loaded by {@link ChildPageLoader}
+     */
+    public final ChildBean getChildItem(int groupIndex, int childIndex) {
+        return getChildItem(getGroupItem(groupIndex), groupIndex, childIndex);
+    }
+
+    final ChildBean getChildItem(GroupBean groupBean, int groupIndex, int childIndex) {
+        if (!mChildPager.isEnabled()) {
+            final int[] childOrder = mChildOrders.get(groupIndex);
+            return groupBean.getChildAt(childOrder == null ? childIndex : childOrder[childIndex]);
+        }
+        return mChildPager.getChild(groupIndex, childIndex);
+    }
+
+    /**
+     * @return num of children of the group , only loaded ones are counted if {@link ChildPageLoader} is set
+     */
+    final int getChildCount(int groupIndex, GroupBean groupBean) {
+        return mChildPager.isEnabled() ? mChildPager.getChildCount(groupIndex) : groupBean.getChildCount();
+    }
+
+    /**
+     * @return num of children shown when the group is expanding , less than child count while being revealed progressively
+     */
+    final int getShownChildCount(int groupIndex, GroupBean groupBean) {
+        return getShownChildCount(groupIndex, getChildCount(groupIndex, groupBean));
+    }
+
+    private int getShownChildCount(int groupIndex, int childCount) {
+        final int previewedChildCount = getPreviewedChildCount(groupIndex, childCount);
+        final int revealedChildCount = mChildRevealer.get(groupIndex);
+        return revealedChildCount < 0 ? previewedChildCount : Math.min(previewedChildCount, revealedChildCount);
+    }
+
+    /**
+     * @return num of children shown after the group is fully revealed , limited by preview
+     */
+    private int getPreviewedChildCount(int groupIndex, int childCount) {
+        if (mPreviewChildCount <= 0) {
+            return childCount;
+        }
+        return Math.min(childCount, mPreviewChildCounts.get(groupIndex, mPreviewChildCount));
+    }
+
+    /**
+     * @return type of the row following the shown children of an expanding group
+     */
+    private int getFooterType(int groupIndex) {
+        return getFooterType(groupIndex, getChildCount(groupIndex, getGroupItem(groupIndex)));
+    }
+
+    private int getFooterType(int groupIndex, int childCount) {
+        if (mChildRevealer.isRevealing(groupIndex)) {
+            // footer follows the last child , appears after all children are revealed
+            return FOOTER_NONE;
+        }
+        if (getPreviewedChildCount(groupIndex, childCount) < childCount) {
+            return FOOTER_SHOW_MORE;
+        }
+        if (mChildPager.isEnabled() && mChildPager.hasMore(groupIndex)) {
+            return FOOTER_LOADING;
+        }
+        return FOOTER_NONE;
+    }
+
+    /**
+     * @return num of rows below the group item when the group is expanding , including shown children and footer
+     */
+    private int getChildRowCount(int groupIndex, GroupBean groupBean) {
+        final int result = getShownChildCount(groupIndex, groupBean);
+        return getFooterType(groupIndex) != FOOTER_NONE ? result + 1 : result;
+    }
+
+    /**
+     * @return num of rows of the group , including the group item itself
+     */
+    final int getGroupRowCount(int groupIndex) {
+        return getPositionIndex().get(groupIndex);
+    }
+
+    /**
+     * @return whether groups are shown by {@link #filterGroups(List, GroupFilter)} with a filter
+     */
+    final boolean isFiltering() {
+        return mIsFiltering;
+    }
+
+    /**
+     * @return whether groups are loaded by {@link PagedGroupList}
+     */
+    final boolean isGroupPaged() {
+        return mPagedGroupList != null;
+    }
+
+    /**
+     * @return whether children are loaded by {@link ChildPageLoader}
+     */
+    final boolean isChildPaged() {
+        return mChildPager.isEnabled();
+    }
+
+    /**
+     * called before loaded children of a long folded group are dropped
+     *
+     * @return false to keep them
+     */
+    boolean canEvictChildPage(int groupIndex) {
+        return true;
+    }
+
+    private void checkChildrenNotPaged() {
+        if (mChildPager.isEnabled()) {
+            throw new IllegalStateException("children are loaded by ChildPageLoader , they can not be modified");
+        }
+    }
+
+    private void onLoadingRowBound(int groupIndex) {
+        if (groupIndex < 0 || !mChildPager.isEnabled()) {
+            return;
+        }
+        mChildPager.loadNextPage(getGroupItem(groupIndex), groupIndex, getBackgroundExecutor());
+    }
+
+    private void onChildPageLoaded(int groupIndex, List<ChildBean> children, int pageSize) {
+        final int oldShownChildCount = getShownChildCount(groupIndex, getGroupItem(groupIndex));
+        final int oldFooterType = getFooterType(groupIndex);
+        mChildPager.appendPage(groupIndex, children, pageSize);
+        if (isGroupExpanding(groupIndex)) {
+            notifyShownChildrenAppended(groupIndex, oldShownChildCount, oldFooterType);
+        }
+    }
+
+    /**
+     * append next chunk of hidden children of each group being revealed progressively
+     */
+    private void revealNextChildren() {
+        for (int i = mChildRevealer.size() - 1; i >= 0; i--) {
+            final int groupIndex = mChildRevealer.groupIndexAt(i);
+            if (groupIndex >= getGroupCount() || !isGroupExpanding(groupIndex)) {
+                mChildRevealer.delete(groupIndex);
+                continue;
+            }
+            final GroupBean groupBean = getGroupItem(groupIndex);
+            final int revealedChildCount = mChildRevealer.nextRevealedChildCount(mChildRevealer.revealedChildCountAt(i),
+                    getPreviewedChildCount(groupIndex, getChildCount(groupIndex, groupBean)));
+            if (revealedChildCount < 0) {
+                finishRevealingChildren(groupIndex);
+            } else {
+                final int oldShownChildCount = getShownChildCount(groupIndex, groupBean);
+                mChildRevealer.put(groupIndex, revealedChildCount);
+                notifyShownChildrenAppended(groupIndex, oldShownChildCount, FOOTER_NONE);
+            }
+        }
+        if (mChildRevealer.size() > 0) {
+            mChildRevealer.schedule();
+        }
+    }
+
+    /**
+     * show all hidden children of the group at once if it is being revealed progressively
+     */
+    private void finishRevealingChildren(int groupIndex) {
+        if (!mChildRevealer.isRevealing(groupIndex)) {
+            return;
+        }
+        if (groupIndex >= getGroupCount() || !isGroupExpanding(groupIndex)) {
+            mChildRevealer.delete(groupIndex);
+            return;
+        }
+        final int oldShownChildCount = getShownChildCount(groupIndex, getGroupItem(groupIndex));
+        mChildRevealer.delete(groupIndex);
+        notifyShownChildrenAppended(groupIndex, oldShownChildCount, FOOTER_NONE);
+    }
+
+    private void finishRevealingChildren() {
+        for (int i = mChildRevealer.size() - 1; i >= 0; i--) {
+            finishRevealingChildren(mChildRevealer.groupIndexAt(i));
+        }
+    }
+
+    /**
+     * called before a page of {@link PagedGroupList} is evicted
+     *
+     * @return false to keep the groups loaded
+     */
+    boolean canEvictGroups(int groupIndexStart, int groupCount) {
+        final int expandingGroupIndex = mExpandGroupBits.nextSetBit(groupIndexStart);
+        return expandingGroupIndex < 0 || expandingGroupIndex >= groupIndexStart + groupCount;
+    }
+
+    private void checkGroupsNotPaged() {
+        if (mPagedGroupList != null) {
+            throw new IllegalStateException("groups are loaded by PagedGroupList , they can not be inserted or removed");
+        }
+    }
+
+    /**
+     * load the page of group and prefetch the nearer neighbour page
+     */
+    private void loadGroupsAround(int groupIndex) {
+        final PagedGroupList<GroupBean> pagedGroupList = mPagedGroupList;
+        if (pagedGroupList == null || groupIndex < 0) {
+            return;
+        }
+        final int pageSize = pagedGroupList.getPageSize();
+        final int pageIndex = groupIndex / pageSize;
+        pagedGroupList.touchPage(pageIndex);
+        pagedGroupList.loadPage(pageIndex, getBackgroundExecutor(), mGroupPageLoadCallback);
+        pagedGroupList.loadPage(groupIndex % pageSize < pageSize / 2 ? pageIndex - 1 : pageIndex + 1,
+                getBackgroundExecutor(), mGroupPageLoadCallback);
+    }
+
+    private void onGroupPageLoaded(int pageIndex, int startIndex, List<GroupBean> groups) {
+        final SparseArray<List<GroupBean>> evictedPages = mPagedGroupList.putPage(pageIndex, groups, mGroupPageEvictPolicy);
+        final int pageSize = mPagedGroupList.getPageSize();
+        if (!mGroupIndexMapDirty) {
+            for (int i = 0; i < evictedPages.size(); i++) {
+                final int evictedStartIndex = evictedPages.keyAt(i) * pageSize;
+                final List<GroupBean> evictedGroups = evictedPages.valueAt(i);
+                for (int j = 0; j < evictedGroups.size(); j++) {
+                    final Integer index = mGroupIndexMap.get(evictedGroups.get(j));
+                    if (index != null && index == evictedStartIndex + j) {
+                        mGroupIndexMap.remove(evictedGroups.get(j));
+                    }
+                }
             }
-            GroupBean groupBean = getGroupItem(groupCursor);
-            if (mExpandGroupSet.contains(groupBean)) {
-                final int childCount = groupBean.getChildCount();
-                final int offset = adapterPosition - adaptePositionCursor;
-                if (childCount >= offset) {
-                    result[0] = groupCursor;
-                    result[1] = offset - 1;
-                    break;
+            for (int i = groups.size() - 1; i >= 0; i--) {
+                if (groups.get(i) != null) {
+                    mGroupIndexMap.put(groups.get(i), startIndex + i);
                 }
-                adaptePositionCursor += childCount;
             }
-            adaptePositionCursor++;
         }
-        return result;
+        // evicted groups may still be bound , rebind them as placeholders
+        for (int i = 0; i < evictedPages.size(); i++) {
+            notifyGroupRowsChanged(evictedPages.keyAt(i) * pageSize, evictedPages.valueAt(i).size());
+        }
+        // placeholders are replaced by groups
+        notifyGroupRowsChanged(startIndex, groups.size());
+    }
+
+    /**
+     * notify rows of groups and their shown children changed
+     */
+    private void notifyGroupRowsChanged(int groupIndexStart, int groupCount) {
+        if (groupCount <= 0) {
+            return;
+        }
+        final int endIndex = groupIndexStart + groupCount - 1;
+        final int position = getAdapterPosition(groupIndexStart);
+        notifyItemRangeChanged(position, getAdapterPosition(endIndex) + getGroupRowCount(endIndex) - position);
     }
 
+    /**
+     * dispatch list updates of rows to the adapter , with the adapter position of the first row as offset
+     */
+    private final class OffsetListUpdateCallback implements ListUpdateCallback {
+        private final int mOffset;
+
+        OffsetListUpdateCallback(int offset) {
+            mOffset = offset;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            notifyRowsInserted(position + mOffset, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyRowsRemoved(position + mOffset, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyRowMoved(fromPosition + mOffset, toPosition + mOffset);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifyItemRangeChanged(position + mOffset, count, payload);
+        }
+    }
 
     public interface BaseGroupBean<ChildBean> {
         /**
@@ -454,6 +2995,49 @@ public abstract class BaseExpandableRecyclerViewAdapter
         boolean isExpandable();
     }
 
+    /**
+     * filter of {@link #filterGroups(List, GroupFilter)} , called on background thread
+     */
+    public interface GroupFilter<GroupBean extends BaseGroupBean<ChildBean>, ChildBean> {
+        /**
+         * @return whether the group is shown with all its children
+         */
+        @WorkerThread
+        boolean matchGroup(GroupBean groupBean);
+
+        /**
+         * called for children of groups not matched by {@link #matchGroup(BaseGroupBean)}
+         *
+         * @return whether the child is shown
+         */
+        @WorkerThread
+        boolean matchChild(GroupBean groupBean, ChildBean childBean);
+
+        /**
+         * @param groupBean source group
+         * @param children  matching children of groupBean , not empty
+         * @return group which shows only children
+         */
+        @WorkerThread
+        GroupBean onCreateFilteredGroup(GroupBean groupBean, List<ChildBean> children);
+    }
+
+    /**
+     * loads children of a group page by page , see {@link #setChildPageLoader(ChildPageLoader, int, ViewProducer)}
+     */
+    public interface ChildPageLoader<GroupBean extends BaseGroupBean<ChildBean>, ChildBean> {
+        /**
+         * called on background thread
+         *
+         * @param groupBean  group whose children are loaded
+         * @param startIndex index of the first child to load
+         * @param pageSize   max num of children to load
+         * @return children from startIndex , less than pageSize children means no more children
+         */
+        @WorkerThread
+        List<ChildBean> loadChildPage(GroupBean groupBean, int startIndex, int pageSize);
+    }
+
     public static abstract class BaseGroupViewHolder extends RecyclerView.ViewHolder {
         public BaseGroupViewHolder(View itemView) {
             super(itemView);
@@ -469,7 +3053,7 @@ public abstract class BaseExpandableRecyclerViewAdapter
          * @param relatedAdapter
          * @param isExpanding
          */
-        protected abstract void onExpandStatusChanged(RecyclerView.Adapter relatedAdapter, boolean isExpanding);
+        protected abstract void onExpandStatusChanged(RecyclerView.Adapter<?> relatedAdapter, boolean isExpanding);
     }
 
 
@@ -0,0 +1,473 @@
+/**
+ * BaseTreeRecyclerViewAdapter
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * adapter which shows nodes of a tree with any depth.
+ * <p>
+ * Visible nodes are kept in a flattened list in adapter position order ,
+ * which is updated by splicing the visible subtree when a node is expanded or folded ,
+ * so that position lookups never walk the tree.
+ * Expand status of descendants is kept while their ancestor is folded.
+ *
+ * @param <Node>           node type
+ * @param <NodeViewHolder> view holder of node
+ */
+public abstract class BaseTreeRecyclerViewAdapter
+        <Node extends BaseTreeRecyclerViewAdapter.BaseTreeNode<Node>,
+                NodeViewHolder extends BaseTreeRecyclerViewAdapter.BaseNodeViewHolder>
+        extends RecyclerView.Adapter<NodeViewHolder> {
+
+    private static final Object EXPAND_PAYLOAD = new Object();
+
+    /**
+     * visible nodes and their depth in adapter position order
+     */
+    private final VisibleNodes<Node> mVisibleNodes = new VisibleNodes<>();
+    private boolean mVisibleNodesDirty = true;
+    /**
+     * keys of expanding nodes , nodes with {@link #getNodeId(BaseTreeNode)} are kept by id
+     */
+    private final LongHashSet mExpandNodeIds = new LongHashSet();
+    private final Set<Node> mExpandNodes = new HashSet<>();
+
+    private TreeRecyclerViewOnClickListener<Node> mListener;
+
+    public BaseTreeRecyclerViewAdapter() {
+        registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                // after notifyDataSetChange(),flatten the tree again on next access
+                mVisibleNodesDirty = true;
+            }
+        });
+    }
+
+    /**
+     * get num of root nodes
+     *
+     * @return root count
+     */
+    abstract public int getRootCount();
+
+    /**
+     * get root node at rootIndex
+     *
+     * @param rootIndex integer between [0,{@link #getRootCount()})
+     * @return related Node
+     */
+    abstract public Node getRootItem(int rootIndex);
+
+    protected int getNodeType(Node node, int depth) {
+        return 0;
+    }
+
+    /**
+     * stable id of node , used by {@link #getItemId(int)} when {@link #setHasStableIds(boolean)} is enabled ,
+     * and to keep expand status without calling Node.equals()/hashCode()
+     *
+     * @param node Node
+     * @return id unique among all nodes , or {@link RecyclerView#NO_ID}
+     */
+    protected long getNodeId(Node node) {
+        return RecyclerView.NO_ID;
+    }
+
+    /**
+     * create {@link NodeViewHolder} for node item
+     *
+     * @param parent
+     * @param nodeViewType
+     * @return
+     */
+    abstract public NodeViewHolder onCreateNodeViewHolder(ViewGroup parent, int nodeViewType);
+
+    /**
+     * bind {@link NodeViewHolder}
+     *
+     * @param holder
+     * @param node
+     * @param depth    depth of node , 0 for root nodes
+     * @param isExpand
+     */
+    abstract public void onBindNodeViewHolder(NodeViewHolder holder, Node node, int depth, boolean isExpand);
+
+    /**
+     * bind {@link NodeViewHolder} with payload , used to invalidate partially
+     *
+     * @param holder
+     * @param node
+     * @param depth
+     * @param isExpand
+     * @param payload
+     */
+    protected void onBindNodeViewHolder(NodeViewHolder holder, Node node, int depth, boolean isExpand, List<Object> payload) {
+        onBindNodeViewHolder(holder, node, depth, isExpand);
+    }
+
+    public void setListener(TreeRecyclerViewOnClickListener<Node> listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @param position adapter position
+     * @return node at position
+     */
+    public final Node getNodeItem(int position) {
+        return getVisibleNodes().get(position);
+    }
+
+    /**
+     * @param position adapter position
+     * @return depth of node at position , 0 for root nodes
+     */
+    public final int getNodeDepth(int position) {
+        return getVisibleNodes().depthAt(position);
+    }
+
+    /**
+     * @param node Node
+     * @return adapter position of node , or -1 if it is not visible
+     */
+    public final int getNodePosition(Node node) {
+        return getVisibleNodes().indexOf(node);
+    }
+
+    public final boolean isNodeExpanding(Node node) {
+        if (!node.isExpandable()) {
+            return false;
+        }
+        final long nodeId = getNodeId(node);
+        return nodeId != RecyclerView.NO_ID ? mExpandNodeIds.contains(nodeId) : mExpandNodes.contains(node);
+    }
+
+    /**
+     * expand node , descendants are shown as they were expanded.
+     * A node whose ancestor is folded is marked expanding and shown when the ancestor is expanded
+     *
+     * @param node Node
+     * @return whether expand status is changed
+     */
+    public final boolean expandNode(Node node) {
+        final int position = getNodePosition(node);
+        if (position >= 0) {
+            return expandNodeAt(position);
+        }
+        if (!node.isExpandable() || isNodeExpanding(node)) {
+            return false;
+        }
+        setNodeExpanding(node, true);
+        return true;
+    }
+
+    /**
+     * fold node , expand status of descendants is kept
+     *
+     * @param node Node
+     * @return whether expand status is changed
+     */
+    public final boolean foldNode(Node node) {
+        final int position = getNodePosition(node);
+        if (position >= 0) {
+            return foldNodeAt(position);
+        }
+        if (!isNodeExpanding(node)) {
+            return false;
+        }
+        setNodeExpanding(node, false);
+        return true;
+    }
+
+    /**
+     * @param position adapter position
+     * @return whether expand status is changed
+     */
+    public final boolean expandNodeAt(int position) {
+        final VisibleNodes<Node> visibleNodes = getVisibleNodes();
+        final Node node = visibleNodes.get(position);
+        if (!node.isExpandable() || isNodeExpanding(node)) {
+            return false;
+        }
+        setNodeExpanding(node, true);
+        final VisibleNodes<Node> descendants = new VisibleNodes<>();
+        collectVisibleDescendants(node, visibleNodes.depthAt(position), descendants);
+        visibleNodes.insert(position + 1, descendants);
+        notifyItemChanged(position, EXPAND_PAYLOAD);
+        if (descendants.size() > 0) {
+            notifyItemRangeInserted(position + 1, descendants.size());
+        }
+        return true;
+    }
+
+    /**
+     * @param position adapter position
+     * @return whether expand status is changed
+     */
+    public final boolean foldNodeAt(int position) {
+        final VisibleNodes<Node> visibleNodes = getVisibleNodes();
+        final Node node = visibleNodes.get(position);
+        if (!isNodeExpanding(node)) {
+            return false;
+        }
+        setNodeExpanding(node, false);
+        // visible descendants are the following nodes deeper than node
+        final int depth = visibleNodes.depthAt(position);
+        int end = position + 1;
+        while (end < visibleNodes.size() && visibleNodes.depthAt(end) > depth) {
+            end++;
+        }
+        final int count = end - position - 1;
+        visibleNodes.remove(position + 1, count);
+        notifyItemChanged(position, EXPAND_PAYLOAD);
+        if (count > 0) {
+            notifyItemRangeRemoved(position + 1, count);
+        }
+        return true;
+    }
+
+    private void setNodeExpanding(Node node, boolean isExpanding) {
+        final long nodeId = getNodeId(node);
+        if (nodeId != RecyclerView.NO_ID) {
+            if (isExpanding) {
+                mExpandNodeIds.add(nodeId);
+            } else {
+                mExpandNodeIds.remove(nodeId);
+            }
+        } else if (isExpanding) {
+            mExpandNodes.add(node);
+        } else {
+            mExpandNodes.remove(node);
+        }
+    }
+
+    private VisibleNodes<Node> getVisibleNodes() {
+        if (mVisibleNodesDirty) {
+            mVisibleNodes.clear();
+            final int rootCount = getRootCount();
+            for (int i = 0; i < rootCount; i++) {
+                final Node root = getRootItem(i);
+                mVisibleNodes.add(root, 0);
+                collectVisibleDescendants(root, 0, mVisibleNodes);
+            }
+            mVisibleNodesDirty = false;
+        }
+        return mVisibleNodes;
+    }
+
+    /**
+     * append visible descendants of node in pre-order ,
+     * walked by an explicit stack so that deep trees do not overflow the thread stack
+     *
+     * @param node  Node
+     * @param depth depth of node
+     * @param out   list to append to
+     */
+    private void collectVisibleDescendants(Node node, int depth, VisibleNodes<Node> out) {
+        if (!isNodeExpanding(node)) {
+            return;
+        }
+        final List<Node> parents = new ArrayList<>();
+        int[] childIndexes = new int[8];
+        parents.add(node);
+        while (!parents.isEmpty()) {
+            final int top = parents.size() - 1;
+            final Node parent = parents.get(top);
+            final int childIndex = childIndexes[top];
+            if (childIndex >= parent.getChildCount()) {
+                parents.remove(top);
+                continue;
+            }
+            childIndexes[top] = childIndex + 1;
+            final Node child = parent.getChildAt(childIndex);
+            out.add(child, depth + top + 1);
+            if (isNodeExpanding(child)) {
+                if (top + 1 == childIndexes.length) {
+                    final int[] grown = new int[childIndexes.length * 2];
+                    System.arraycopy(childIndexes, 0, grown, 0, childIndexes.length);
+                    childIndexes = grown;
+                }
+                childIndexes[top + 1] = 0;
+                parents.add(child);
+            }
+        }
+    }
+
+    @Override
+    public final int getItemCount() {
+        return getVisibleNodes().size();
+    }
+
+    @Override
+    public final int getItemViewType(int position) {
+        final VisibleNodes<Node> visibleNodes = getVisibleNodes();
+        return getNodeType(visibleNodes.get(position), visibleNodes.depthAt(position));
+    }
+
+    @Override
+    public final long getItemId(int position) {
+        return getNodeId(getVisibleNodes().get(position));
+    }
+
+    @Override
+    public final NodeViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        final NodeViewHolder holder = onCreateNodeViewHolder(parent, viewType);
+        onNodeViewHolderCreated(holder);
+        return holder;
+    }
+
+    @Override
+    public final void onBindViewHolder(NodeViewHolder holder, int position) {
+        onBindViewHolder(holder, position, null);
+    }
+
+    @Override
+    public final void onBindViewHolder(NodeViewHolder holder, int position, List<Object> payloads) {
+        final VisibleNodes<Node> visibleNodes = getVisibleNodes();
+        final Node node = visibleNodes.get(position);
+        final int depth = visibleNodes.depthAt(position);
+        if (payloads != null && payloads.size() != 0) {
+            if (payloads.contains(EXPAND_PAYLOAD)) {
+                holder.onExpandStatusChanged(BaseTreeRecyclerViewAdapter.this, isNodeExpanding(node));
+                if (payloads.size() == 1) {
+                    return;
+                }
+            }
+            onBindNodeViewHolder(holder, node, depth, isNodeExpanding(node), payloads);
+            return;
+        }
+        onBindNodeViewHolder(holder, node, depth, isNodeExpanding(node));
+    }
+
+    /**
+     * attach listeners once the holder is created ,
+     * which resolve the bound node by the adapter position of the holder when triggered
+     *
+     * @param holder created node holder
+     */
+    private void onNodeViewHolderCreated(final NodeViewHolder holder) {
+        holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                final int position = holder.getAdapterPosition();
+                if (mListener != null && position != RecyclerView.NO_POSITION) {
+                    return mListener.onNodeLongClicked(getNodeItem(position));
+                }
+                return false;
+            }
+        });
+        holder.itemView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                onNodeItemClicked(holder);
+            }
+        });
+    }
+
+    private void onNodeItemClicked(NodeViewHolder holder) {
+        final int position = holder.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        final Node node = getNodeItem(position);
+        if (!node.isExpandable()) {
+            if (mListener != null) {
+                mListener.onNodeClicked(node);
+            }
+            return;
+        }
+        final boolean isExpand = isNodeExpanding(node);
+        if (mListener == null || !mListener.onInterceptNodeExpandEvent(node, isExpand)) {
+            if (isExpand) {
+                foldNodeAt(position);
+            } else {
+                expandNodeAt(position);
+            }
+        }
+    }
+
+    public interface BaseTreeNode<Node> {
+        /**
+         * get num of children
+         *
+         * @return
+         */
+        int getChildCount();
+
+        /**
+         * get child at childIndex
+         *
+         * @param childIndex integer between [0,{@link #getChildCount()})
+         * @return
+         */
+        Node getChildAt(int childIndex);
+
+        /**
+         * whether this node is expandable
+         *
+         * @return
+         */
+        boolean isExpandable();
+    }
+
+    public static abstract class BaseNodeViewHolder extends RecyclerView.ViewHolder {
+        public BaseNodeViewHolder(View itemView) {
+            super(itemView);
+        }
+
+        /**
+         * optimize for partial invalidate,
+         * when switching fold status.
+         *
+         * @param relatedAdapter
+         * @param isExpanding
+         */
+        protected abstract void onExpandStatusChanged(RecyclerView.Adapter<?> relatedAdapter, boolean isExpanding);
+    }
+
+    public interface TreeRecyclerViewOnClickListener<Node> {
+
+        /**
+         * called when node item is long clicked
+         *
+         * @param node
+         * @return
+         */
+        boolean onNodeLongClicked(Node node);
+
+        /**
+         * called when an expandable node item is clicked
+         *
+         * @param node
+         * @param isExpand
+         * @return whether intercept the click event
+         */
+        boolean onInterceptNodeExpandEvent(Node node, boolean isExpand);
+
+        /**
+         * called when an unexpandable node item is clicked
+         *
+         * @param node
+         */
+        void onNodeClicked(Node node);
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * ChildOrder
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+import android.support.annotation.WorkerThread;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * sorting of children or groups by index and the moves to notify for the new order
+ */
+final class ChildOrder {
+
+    private ChildOrder() {
+    }
+
+    /**
+     * stable merge sort of child indexes , without boxing them
+     *
+     * @return old index of child at each new index
+     */
+    @WorkerThread
+    static <ChildBean> int[] sortIndexes(List<ChildBean> children, Comparator<? super ChildBean> comparator) {
+        final int count = children.size();
+        int[] order = new int[count];
+        int[] buffer = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        for (int width = 1; width < count; width <<= 1) {
+            for (int low = 0; low < count; low += width << 1) {
+                final int middle = Math.min(low + width, count);
+                final int high = Math.min(low + (width << 1), count);
+                int i = low;
+                int j = middle;
+                int k = low;
+                while (i < middle && j < high) {
+                    buffer[k++] = comparator.compare(children.get(order[j]), children.get(order[i])) < 0 ? order[j++] : order[i++];
+                }
+                while (i < middle) {
+                    buffer[k++] = order[i++];
+                }
+                while (j < high) {
+                    buffer[k++] = order[j++];
+                }
+            }
+            final int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+
+    /**
+     * compute moves which turn the old order into order , children in the longest increasing subsequence stay ,
+     * each of the others is moved right after its predecessor in the new order
+     *
+     * @param order        old index of child at each new index
+     * @param maxMoveCount max num of moves
+     * @return pairs of (from , to) positions to notify in sequence , or null if more than maxMoveCount moves are needed
+     */
+    @WorkerThread
+    static int[] computeMoves(int[] order, int maxMoveCount) {
+        final int count = order.length;
+        // patience sorting , tails[l] is the index in order of the smallest tail of increasing subsequences of length l + 1
+        final int[] tails = new int[count];
+        final int[] previous = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (order[tails[mid]] < order[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        if (count - length > maxMoveCount) {
+            return null;
+        }
+        final BitSet stayBits = new BitSet(count);
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            stayBits.set(order[i]);
+        }
+        final int[] result = new int[(count - length) * 2];
+        // old index of child at each current position
+        final int[] current = new int[count];
+        for (int i = 0; i < count; i++) {
+            current[i] = i;
+        }
+        int moveCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (stayBits.get(order[i])) {
+                continue;
+            }
+            final int from = indexOf(current, order[i]);
+            int to = i == 0 ? 0 : indexOf(current, order[i - 1]) + 1;
+            if (from < to) {
+                to--;
+            }
+            if (from < to) {
+                System.arraycopy(current, from + 1, current, from, to - from);
+            } else {
+                System.arraycopy(current, to, current, to + 1, from - to);
+            }
+            current[to] = order[i];
+            result[moveCount++] = from;
+            result[moveCount++] = to;
+        }
+        return result;
+    }
+
+    /**
+     * expand moves of blocks into moves of their rows , since RecyclerView notifies moves one row at a time
+     *
+     * @param rowCounts    num of rows of each block , in the old order
+     * @param moves        moves of blocks from {@link #computeMoves(int[], int)} , or null
+     * @param maxMoveCount max num of row moves
+     * @return pairs of (from , to) row positions to notify in sequence , or null if more than maxMoveCount moves are needed
+     */
+    static int[] computeRowMoves(int[] rowCounts, int[] moves, int maxMoveCount) {
+        if (moves == null) {
+            return null;
+        }
+        final int count = rowCounts.length;
+        // old index of block at each current position
+        final int[] current = new int[count];
+        for (int i = 0; i < count; i++) {
+            current[i] = i;
+        }
+        // (from , to , rowCount) of each block move
+        final int[] blockMoves = new int[moves.length / 2 * 3];
+        int rowMoveCount = 0;
+        for (int i = 0, j = 0; i < moves.length; i += 2, j += 3) {
+            final int from = moves[i];
+            final int to = moves[i + 1];
+            final int block = current[from];
+            final int rowCount = rowCounts[block];
+            rowMoveCount += rowCount;
+            if (rowMoveCount > maxMoveCount) {
+                return null;
+            }
+            final int rowFrom = sumRowCounts(rowCounts, current, from);
+            if (from < to) {
+                System.arraycopy(current, from + 1, current, from, to - from);
+            } else {
+                System.arraycopy(current, to, current, to + 1, from - to);
+            }
+            current[to] = block;
+            blockMoves[j] = rowFrom;
+            blockMoves[j + 1] = sumRowCounts(rowCounts, current, to);
+            blockMoves[j + 2] = rowCount;
+        }
+        final int[] result = new int[rowMoveCount * 2];
+        int k = 0;
+        for (int j = 0; j < blockMoves.length; j += 3) {
+            final int rowFrom = blockMoves[j];
+            final int rowTo = blockMoves[j + 1];
+            final int rowCount = blockMoves[j + 2];
+            for (int i = 0; i < rowCount; i++) {
+                if (rowTo < rowFrom) {
+                    // moved up , each row lands below the previous one
+                    result[k++] = rowFrom + i;
+                    result[k++] = rowTo + i;
+                } else {
+                    // moved down , the first row of the rest is moved below the previous one
+                    result[k++] = rowFrom;
+                    result[k++] = rowTo + rowCount - 1;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int sumRowCounts(int[] rowCounts, int[] blocks, int end) {
+        int result = 0;
+        for (int i = 0; i < end; i++) {
+            result += rowCounts[blocks[i]];
+        }
+        return result;
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * ChildPager
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * children of groups loaded page by page by a {@link BaseExpandableRecyclerViewAdapter.ChildPageLoader} , keyed by group index ,
+ * children of a group are dropped after it is folded for the evict delay
+ *
+ * @param <GroupBean> group type
+ * @param <ChildBean> child type
+ */
+final class ChildPager<GroupBean extends BaseExpandableRecyclerViewAdapter.BaseGroupBean<ChildBean>, ChildBean> {
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final Callback<ChildBean> mCallback;
+    private BaseExpandableRecyclerViewAdapter.ChildPageLoader<GroupBean, ChildBean> mLoader;
+    private int mPageSize;
+    private ViewProducer mLoadingViewProducer;
+    private long mEvictDelay;
+    private SparseArray<ChildPage<ChildBean>> mPages = new SparseArray<>();
+    /**
+     * a single eviction is pending for all folded groups , instead of one per fold
+     */
+    private boolean mIsEvictionScheduled;
+    private final Runnable mEvictionRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mIsEvictionScheduled = false;
+            evictPages();
+        }
+    };
+
+    ChildPager(Callback<ChildBean> callback, long evictDelay) {
+        mCallback = callback;
+        mEvictDelay = evictDelay;
+    }
+
+    /**
+     * drop all loaded children and load them by loader from now on
+     */
+    void setLoader(BaseExpandableRecyclerViewAdapter.ChildPageLoader<GroupBean, ChildBean> loader, int pageSize,
+                   ViewProducer loadingViewProducer) {
+        mLoader = loader;
+        mPageSize = pageSize;
+        mLoadingViewProducer = loadingViewProducer;
+        mPages.clear();
+    }
+
+    void setEvictDelay(long delayMillis) {
+        mEvictDelay = delayMillis;
+    }
+
+    /**
+     * @return whether children are loaded by the loader instead of GroupBean
+     */
+    boolean isEnabled() {
+        return mLoader != null;
+    }
+
+    ViewProducer getLoadingViewProducer() {
+        return mLoadingViewProducer;
+    }
+
+    /**
+     * @return num of loaded children of the group
+     */
+    int getChildCount(int groupIndex) {
+        final ChildPage<ChildBean> childPage = mPages.get(groupIndex);
+        return childPage == null ? 0 : childPage.mChildren.size();
+    }
+
+    /**
+     * @return loaded child , or null if it is not loaded
+     */
+    ChildBean getChild(int groupIndex, int childIndex) {
+        final ChildPage<ChildBean> childPage = mPages.get(groupIndex);
+        if (childPage == null || childIndex < 0 || childIndex >= childPage.mChildren.size()) {
+            return null;
+        }
+        return childPage.mChildren.get(childIndex);
+    }
+
+    /**
+     * @return whether the group may have children not loaded yet
+     */
+    boolean hasMore(int groupIndex) {
+        final ChildPage<ChildBean> childPage = mPages.get(groupIndex);
+        return childPage == null || childPage.mHasMore;
+    }
+
+    /**
+     * load the next page of the group on executor unless it is loading or all children are loaded ,
+     * {@link Callback#onChildPageLoaded(int, List, int)} is called on main thread after it is loaded
+     */
+    void loadNextPage(final GroupBean groupBean, int groupIndex, Executor executor) {
+        ChildPage<ChildBean> page = mPages.get(groupIndex);
+        if (page == null) {
+            page = new ChildPage<>();
+            mPages.put(groupIndex, page);
+        }
+        if (page.mIsLoading || !page.mHasMore) {
+            return;
+        }
+        page.mIsLoading = true;
+        final ChildPage<ChildBean> childPage = page;
+        final BaseExpandableRecyclerViewAdapter.ChildPageLoader<GroupBean, ChildBean> loader = mLoader;
+        final int startIndex = childPage.mChildren.size();
+        final int pageSize = mPageSize;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<ChildBean> children = loader.loadChildPage(groupBean, startIndex, pageSize);
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        childPage.mIsLoading = false;
+                        final int index = mPages.indexOfValue(childPage);
+                        if (loader != mLoader || index < 0) {
+                            // evicted or dropped by data set change
+                            return;
+                        }
+                        mCallback.onChildPageLoaded(mPages.keyAt(index), children, pageSize);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * append a loaded page to children of the group , less than pageSize children means no more children
+     */
+    void appendPage(int groupIndex, List<ChildBean> children, int pageSize) {
+        final ChildPage<ChildBean> childPage = mPages.get(groupIndex);
+        final int loadedCount = children == null ? 0 : children.size();
+        if (loadedCount > 0) {
+            childPage.mChildren.addAll(children);
+        }
+        childPage.mHasMore = loadedCount >= pageSize;
+    }
+
+    /**
+     * children of a folded group are evicted after the evict delay , unless it is expanded again
+     */
+    void onGroupExpandChanged(int groupIndex, boolean expand) {
+        final ChildPage<ChildBean> childPage = mPages.get(groupIndex);
+        if (childPage == null) {
+            return;
+        }
+        if (expand) {
+            childPage.mFoldedTime = 0;
+        } else {
+            childPage.mFoldedTime = SystemClock.uptimeMillis();
+            scheduleEviction(mEvictDelay);
+        }
+    }
+
+    void clear() {
+        mPages.clear();
+    }
+
+    /**
+     * @see BaseExpandableRecyclerViewAdapter#shiftKeys(SparseArray, int, int, int)
+     */
+    void shiftGroups(int groupIndexStart, int removedCount, int offset) {
+        mPages = BaseExpandableRecyclerViewAdapter.shiftKeys(mPages, groupIndexStart, removedCount, offset);
+    }
+
+    /**
+     * @see BaseExpandableRecyclerViewAdapter#permuteKeys(SparseArray, int[])
+     */
+    void permuteGroups(int[] groupIndexes) {
+        mPages = BaseExpandableRecyclerViewAdapter.permuteKeys(mPages, groupIndexes);
+    }
+
+    private void scheduleEviction(long delayMillis) {
+        if (!mIsEvictionScheduled) {
+            mIsEvictionScheduled = true;
+            MAIN_HANDLER.postDelayed(mEvictionRunnable, delayMillis);
+        }
+    }
+
+    /**
+     * drop children of groups folded for the evict delay , the eviction is scheduled again for groups folded later
+     */
+    private void evictPages() {
+        final long now = SystemClock.uptimeMillis();
+        long nextEvictTime = Long.MAX_VALUE;
+        for (int i = mPages.size() - 1; i >= 0; i--) {
+            final long foldedTime = mPages.valueAt(i).mFoldedTime;
+            if (foldedTime == 0) {
+                continue;
+            }
+            if (now - foldedTime < mEvictDelay) {
+                nextEvictTime = Math.min(nextEvictTime, foldedTime + mEvictDelay);
+            } else if (mCallback.canEvictChildPage(mPages.keyAt(i))) {
+                mPages.removeAt(i);
+            }
+        }
+        if (nextEvictTime != Long.MAX_VALUE) {
+            scheduleEviction(nextEvictTime - now);
+        }
+    }
+
+    interface Callback<ChildBean> {
+        /**
+         * called on main thread , children are appended by {@link #appendPage(int, List, int)}
+         *
+         * @param groupIndex index of the group
+         * @param children   loaded children , or null
+         * @param pageSize   num of children requested
+         */
+        void onChildPageLoaded(int groupIndex, List<ChildBean> children, int pageSize);
+
+        /**
+         * called before loaded children of a long folded group are dropped
+         *
+         * @return false to keep them
+         */
+        boolean canEvictChildPage(int groupIndex);
+    }
+
+    /**
+     * children of a group loaded by the loader
+     */
+    private static final class ChildPage<ChildBean> {
+        final List<ChildBean> mChildren = new ArrayList<>();
+        boolean mHasMore = true;
+        boolean mIsLoading;
+        /**
+         * uptime when the group is folded , 0 if expanding
+         */
+        long mFoldedTime;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * ChildRevealer
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+import android.util.SparseIntArray;
+import android.view.Choreographer;
+
+/**
+ * num of revealed children of groups being expanded progressively , keyed by group index ,
+ * the adapter is called back once per frame to reveal the next chunk of each group
+ */
+final class ChildRevealer {
+
+    /**
+     * max num of frames to reveal children of a group progressively
+     */
+    static final int MAX_REVEAL_FRAMES = 30;
+
+    private final Runnable mOnFrame;
+    private int mFirstChunkSize;
+    private int mChunkSize;
+    private SparseIntArray mRevealedChildCounts = new SparseIntArray();
+    private boolean mIsScheduled;
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mIsScheduled = false;
+            mOnFrame.run();
+        }
+    };
+
+    /**
+     * @param onFrame called on the next frame after revealing is scheduled
+     */
+    ChildRevealer(Runnable onFrame) {
+        mOnFrame = onFrame;
+    }
+
+    void setChunkSizes(int firstChunkSize, int chunkSize) {
+        mFirstChunkSize = firstChunkSize;
+        mChunkSize = chunkSize;
+    }
+
+    /**
+     * start revealing children of a group being expanded , if it has more than the first chunk of children
+     *
+     * @param previewedChildCount num of children shown after the group is fully revealed
+     */
+    void start(int groupIndex, int previewedChildCount) {
+        if (mFirstChunkSize > 0 && previewedChildCount > mFirstChunkSize) {
+            mRevealedChildCounts.put(groupIndex, mFirstChunkSize);
+            schedule();
+        } else {
+            mRevealedChildCounts.delete(groupIndex);
+        }
+    }
+
+    /**
+     * @return num of revealed children of the group , or -1 if it is not being revealed
+     */
+    int get(int groupIndex) {
+        return mRevealedChildCounts.get(groupIndex, -1);
+    }
+
+    boolean isRevealing(int groupIndex) {
+        return mRevealedChildCounts.indexOfKey(groupIndex) >= 0;
+    }
+
+    int size() {
+        return mRevealedChildCounts.size();
+    }
+
+    int groupIndexAt(int index) {
+        return mRevealedChildCounts.keyAt(index);
+    }
+
+    int revealedChildCountAt(int index) {
+        return mRevealedChildCounts.valueAt(index);
+    }
+
+    void put(int groupIndex, int revealedChildCount) {
+        mRevealedChildCounts.put(groupIndex, revealedChildCount);
+    }
+
+    void delete(int groupIndex) {
+        mRevealedChildCounts.delete(groupIndex);
+    }
+
+    void clear() {
+        mRevealedChildCounts.clear();
+    }
+
+    /**
+     * @param revealedChildCount  num of children revealed so far
+     * @param previewedChildCount num of children shown after the group is fully revealed
+     * @return num of children revealed after this frame , or -1 if all of them are revealed ,
+     * chunks grow for huge groups so that revealing takes MAX_REVEAL_FRAMES at most
+     */
+    int nextRevealedChildCount(int revealedChildCount, int previewedChildCount) {
+        final int hiddenChildCount = previewedChildCount - mFirstChunkSize;
+        final int chunkSize = Math.max(mChunkSize, (hiddenChildCount + MAX_REVEAL_FRAMES - 1) / MAX_REVEAL_FRAMES);
+        return revealedChildCount + chunkSize >= previewedChildCount ? -1 : revealedChildCount + chunkSize;
+    }
+
+    void schedule() {
+        if (!mIsScheduled) {
+            mIsScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * keep revealed children revealed after children of a group being revealed are inserted or removed
+     */
+    void onChildRangeShifted(int groupIndex, int childIndexStart, int childCount, boolean isInserted) {
+        final int revealedChildCount = get(groupIndex);
+        if (revealedChildCount < 0 || childIndexStart >= revealedChildCount) {
+            return;
+        }
+        mRevealedChildCounts.put(groupIndex, isInserted
+                ? revealedChildCount + childCount
+                : revealedChildCount - (Math.min(childIndexStart + childCount, revealedChildCount) - childIndexStart));
+    }
+
+    /**
+     * @see BaseExpandableRecyclerViewAdapter#shiftKeys(SparseIntArray, int, int, int)
+     */
+    void shiftGroups(int groupIndexStart, int removedCount, int offset) {
+        mRevealedChildCounts = BaseExpandableRecyclerViewAdapter.shiftKeys(mRevealedChildCounts, groupIndexStart, removedCount, offset);
+    }
+
+    /**
+     * @see BaseExpandableRecyclerViewAdapter#permuteKeys(SparseIntArray, int[])
+     */
+    void permuteGroups(int[] groupIndexes) {
+        mRevealedChildCounts = BaseExpandableRecyclerViewAdapter.permuteKeys(mRevealedChildCounts, groupIndexes);
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * FlatGroupList
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+import android.support.v7.util.DiffUtil;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * immutable flattened snapshot of shown items , one row per group or child item ,
+ * diffed by {@link DiffCallback} to dispatch a group list change as row notifications
+ *
+ * @param <GroupBean> group type
+ * @param <ChildBean> child type
+ */
+final class FlatGroupList<GroupBean extends BaseExpandableRecyclerViewAdapter.BaseGroupBean<ChildBean>, ChildBean> {
+
+    private static final int GROUP_ROW = -1;
+    private static final int FOOTER_ROW = -2;
+
+    final BitSet mExpandGroupBits;
+    private final Object[] mGroupOfRow;
+    private final Object[] mChildOfRow;
+    /**
+     * childIndex of each row , {@link #GROUP_ROW} for group item , {@link #FOOTER_ROW} for footer of group
+     */
+    private final int[] mChildIndexOfRow;
+    /**
+     * expand status of each group item row
+     */
+    private final boolean[] mExpandingOfRow;
+
+    /**
+     * @param groups          groups
+     * @param expandGroupBits expand status of groups keyed by index
+     * @param rowSource       shown children and footer of each expanding group
+     */
+    FlatGroupList(List<GroupBean> groups, BitSet expandGroupBits, RowSource<GroupBean, ChildBean> rowSource) {
+        mExpandGroupBits = expandGroupBits;
+        final int groupCount = groups.size();
+        final int[] shownChildCounts = new int[groupCount];
+        final boolean[] hasFooter = new boolean[groupCount];
+        int rowCount = groupCount;
+        for (int i = expandGroupBits.nextSetBit(0); i >= 0 && i < groupCount; i = expandGroupBits.nextSetBit(i + 1)) {
+            shownChildCounts[i] = rowSource.getShownChildCount(i, groups.get(i));
+            hasFooter[i] = rowSource.hasFooter(i, groups.get(i));
+            rowCount += hasFooter[i] ? shownChildCounts[i] + 1 : shownChildCounts[i];
+        }
+        mGroupOfRow = new Object[rowCount];
+        mChildOfRow = new Object[rowCount];
+        mChildIndexOfRow = new int[rowCount];
+        mExpandingOfRow = new boolean[rowCount];
+        int row = 0;
+        for (int groupIndex = 0; groupIndex < groupCount; groupIndex++) {
+            final GroupBean groupBean = groups.get(groupIndex);
+            final boolean isExpanding = expandGroupBits.get(groupIndex);
+            mGroupOfRow[row] = groupBean;
+            mChildIndexOfRow[row] = GROUP_ROW;
+            mExpandingOfRow[row] = isExpanding;
+            row++;
+            if (isExpanding) {
+                final int childCount = shownChildCounts[groupIndex];
+                for (int i = 0; i < childCount; i++) {
+                    mGroupOfRow[row] = groupBean;
+                    mChildOfRow[row] = rowSource.getShownChild(groupIndex, groupBean, i);
+                    mChildIndexOfRow[row] = i;
+                    row++;
+                }
+                if (hasFooter[groupIndex]) {
+                    mGroupOfRow[row] = groupBean;
+                    mChildIndexOfRow[row] = FOOTER_ROW;
+                    row++;
+                }
+            }
+        }
+    }
+
+    /**
+     * rows of groups not shown yet , expanded to preview , or to a loading row if children are paged
+     *
+     * @param previewChildCount num of children shown when expanding a group , 0 to show all children
+     * @param isChildPaged      whether children are loaded by {@link BaseExpandableRecyclerViewAdapter.ChildPageLoader}
+     */
+    static <GroupBean extends BaseExpandableRecyclerViewAdapter.BaseGroupBean<ChildBean>, ChildBean>
+    RowSource<GroupBean, ChildBean> newGroupRows(final int previewChildCount, final boolean isChildPaged) {
+        return new RowSource<GroupBean, ChildBean>() {
+            @Override
+            public int getShownChildCount(int groupIndex, GroupBean groupBean) {
+                if (isChildPaged) {
+                    return 0;
+                }
+                final int childCount = groupBean.getChildCount();
+                return previewChildCount > 0 ? Math.min(childCount, previewChildCount) : childCount;
+            }
+
+            @Override
+            public boolean hasFooter(int groupIndex, GroupBean groupBean) {
+                return isChildPaged || getShownChildCount(groupIndex, groupBean) < groupBean.getChildCount();
+            }
+
+            @Override
+            public ChildBean getShownChild(int groupIndex, GroupBean groupBean, int childIndex) {
+                return groupBean.getChildAt(childIndex);
+            }
+        };
+    }
+
+    int size() {
+        return mGroupOfRow.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    GroupBean getGroup(int row) {
+        return (GroupBean) mGroupOfRow[row];
+    }
+
+    @SuppressWarnings("unchecked")
+    ChildBean getChild(int row) {
+        return (ChildBean) mChildOfRow[row];
+    }
+
+    boolean isGroupRow(int row) {
+        return mChildIndexOfRow[row] == GROUP_ROW;
+    }
+
+    boolean isFooterRow(int row) {
+        return mChildIndexOfRow[row] == FOOTER_ROW;
+    }
+
+    boolean isExpandingRow(int row) {
+        return mExpandingOfRow[row];
+    }
+
+    /**
+     * shown children and footer of expanding groups
+     */
+    interface RowSource<GroupBean, ChildBean> {
+        int getShownChildCount(int groupIndex, GroupBean groupBean);
+
+        boolean hasFooter(int groupIndex, GroupBean groupBean);
+
+        ChildBean getShownChild(int groupIndex, GroupBean groupBean, int childIndex);
+    }
+
+    /**
+     * decides whether two items represent the same object or have the same contents , called on background thread
+     */
+    interface ItemCallback<GroupBean, ChildBean> {
+        boolean areGroupsTheSame(GroupBean oldGroup, GroupBean newGroup);
+
+        boolean areGroupContentsTheSame(GroupBean oldGroup, GroupBean newGroup);
+
+        boolean areChildrenTheSame(ChildBean oldChild, ChildBean newChild);
+
+        boolean areChildContentsTheSame(ChildBean oldChild, ChildBean newChild);
+    }
+
+    static final class DiffCallback<GroupBean extends BaseExpandableRecyclerViewAdapter.BaseGroupBean<ChildBean>, ChildBean>
+            extends DiffUtil.Callback {
+        private final FlatGroupList<GroupBean, ChildBean> mOldList;
+        private final FlatGroupList<GroupBean, ChildBean> mNewList;
+        private final ItemCallback<GroupBean, ChildBean> mItemCallback;
+
+        DiffCallback(FlatGroupList<GroupBean, ChildBean> oldList, FlatGroupList<GroupBean, ChildBean> newList,
+                     ItemCallback<GroupBean, ChildBean> itemCallback) {
+            mOldList = oldList;
+            mNewList = newList;
+            mItemCallback = itemCallback;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldList.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewList.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            final boolean isGroupRow = mOldList.isGroupRow(oldItemPosition);
+            final boolean isFooterRow = mOldList.isFooterRow(oldItemPosition);
+            if (isGroupRow != mNewList.isGroupRow(newItemPosition)
+                    || isFooterRow != mNewList.isFooterRow(newItemPosition)
+                    || !mItemCallback.areGroupsTheSame(mOldList.getGroup(oldItemPosition), mNewList.getGroup(newItemPosition))) {
+                return false;
+            }
+            return isGroupRow || isFooterRow
+                    || mItemCallback.areChildrenTheSame(mOldList.getChild(oldItemPosition), mNewList.getChild(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            if (mOldList.isFooterRow(oldItemPosition)) {
+                return true;
+            }
+            if (mOldList.isGroupRow(oldItemPosition)) {
+                return mOldList.isExpandingRow(oldItemPosition) == mNewList.isExpandingRow(newItemPosition)
+                        && mItemCallback.areGroupContentsTheSame(mOldList.getGroup(oldItemPosition), mNewList.getGroup(newItemPosition));
+            }
+            return mItemCallback.areChildContentsTheSame(mOldList.getChild(oldItemPosition), mNewList.getChild(newItemPosition));
+        }
+    }
+
+    /**
+     * diff of the children of a single group
+     */
+    static final class ChildDiffCallback<ChildBean> extends DiffUtil.Callback {
+        private final List<ChildBean> mOldChildren;
+        private final List<ChildBean> mNewChildren;
+        private final ItemCallback<?, ChildBean> mItemCallback;
+
+        ChildDiffCallback(List<ChildBean> oldChildren, List<ChildBean> newChildren, ItemCallback<?, ChildBean> itemCallback) {
+            mOldChildren = oldChildren;
+            mNewChildren = newChildren;
+            mItemCallback = itemCallback;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldChildren.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewChildren.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mItemCallback.areChildrenTheSame(mOldChildren.get(oldItemPosition), mNewChildren.get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return mItemCallback.areChildContentsTheSame(mOldChildren.get(oldItemPosition), mNewChildren.get(newItemPosition));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * GroupPositionIndex
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+/**
+ * prefix-sum index over the item count of every group (group item + visible children),
+ * backed by a fenwick tree so that both directions of the position translation are O(log n)
+ */
+final class GroupPositionIndex {
+
+    /**
+     * max num of groups to walk from the last looked-up group before falling back to the tree
+     */
+    private static final int MAX_HINT_STEPS = 8;
+
+    private int mSize;
+    private int mTotal;
+    /**
+     * item count of each group , 0-based
+     */
+    private int[] mValues = new int[0];
+    /**
+     * fenwick tree , 1-based
+     */
+    private int[] mTree = new int[1];
+    /**
+     * last looked-up group and its position ,
+     * since RecyclerView looks up positions in nearly sequential order while scrolling
+     */
+    private int mHintGroup = -1;
+    private int mHintPosition;
+
+    /**
+     * reset the index to groupCount folded groups
+     *
+     * @param groupCount num of groups
+     */
+    void reset(int groupCount) {
+        if (mValues.length < groupCount) {
+            mValues = new int[groupCount];
+            mTree = new int[groupCount + 1];
+        }
+        mSize = groupCount;
+        mTotal = groupCount;
+        mHintGroup = -1;
+        mTree[0] = 0;
+        for (int i = 0; i < groupCount; i++) {
+            mValues[i] = 1;
+            // a fenwick node covers lowbit(i) elements , each of which is 1
+            mTree[i + 1] = (i + 1) & -(i + 1);
+        }
+    }
+
+    /**
+     * insert folded groups in O(n)
+     *
+     * @param groupIndex index of the first inserted group
+     * @param count      num of inserted groups
+     */
+    void insert(int groupIndex, int count) {
+        final int size = mSize + count;
+        if (mValues.length < size) {
+            final int[] values = new int[Math.max(size, mValues.length * 2)];
+            System.arraycopy(mValues, 0, values, 0, mSize);
+            mValues = values;
+            mTree = new int[values.length + 1];
+        }
+        System.arraycopy(mValues, groupIndex, mValues, groupIndex + count, mSize - groupIndex);
+        for (int i = groupIndex; i < groupIndex + count; i++) {
+            mValues[i] = 1;
+        }
+        mSize = size;
+        mTotal += count;
+        if (groupIndex <= mHintGroup) {
+            mHintGroup = -1;
+        }
+        buildTree();
+    }
+
+    /**
+     * remove groups in O(n)
+     *
+     * @param groupIndex index of the first removed group
+     * @param count      num of removed groups
+     */
+    void remove(int groupIndex, int count) {
+        for (int i = groupIndex; i < groupIndex + count; i++) {
+            mTotal -= mValues[i];
+        }
+        System.arraycopy(mValues, groupIndex + count, mValues, groupIndex, mSize - groupIndex - count);
+        mSize -= count;
+        if (groupIndex <= mHintGroup) {
+            mHintGroup = -1;
+        }
+        buildTree();
+    }
+
+    /**
+     * build fenwick tree from mValues in O(n)
+     */
+    private void buildTree() {
+        for (int i = 1; i <= mSize; i++) {
+            mTree[i] = mValues[i - 1];
+        }
+        for (int i = 1; i <= mSize; i++) {
+            final int parent = i + (i & -i);
+            if (parent <= mSize) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * @return sum of item count of all groups
+     */
+    int total() {
+        return mTotal;
+    }
+
+    /**
+     * @param groupIndex index of group
+     * @return item count of the group
+     */
+    int get(int groupIndex) {
+        return mValues[groupIndex];
+    }
+
+    /**
+     * update the item count of a group in O(log n)
+     *
+     * @param groupIndex index of group
+     * @param itemCount  item count of the group , including the group item itself
+     */
+    void set(int groupIndex, int itemCount) {
+        final int delta = itemCount - mValues[groupIndex];
+        if (delta == 0) {
+            return;
+        }
+        mValues[groupIndex] = itemCount;
+        mTotal += delta;
+        if (groupIndex < mHintGroup) {
+            // position of the hint group only depends on groups before it
+            mHintGroup = -1;
+        }
+        for (int i = groupIndex + 1; i <= mSize; i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+
+    /**
+     * @param groupIndex index of group
+     * @return position of the group item , equals to the sum of item count of groups before it
+     */
+    int positionOf(int groupIndex) {
+        if (groupIndex == mHintGroup) {
+            return mHintPosition;
+        }
+        int result = 0;
+        for (int i = groupIndex; i > 0; i -= i & -i) {
+            result += mTree[i];
+        }
+        return result;
+    }
+
+    /**
+     * @param position position , should be in [0,{@link #total()})
+     * @return index of the group which the position belongs to ,
+     * or {@link #size()} if position is out of range
+     */
+    int groupAt(int position) {
+        if (mHintGroup >= 0) {
+            int hintGroup = mHintGroup;
+            int hintPosition = mHintPosition;
+            for (int step = 0; step < MAX_HINT_STEPS; step++) {
+                if (position < hintPosition) {
+                    if (hintGroup == 0) {
+                        break;
+                    }
+                    hintGroup--;
+                    hintPosition -= mValues[hintGroup];
+                } else if (position >= hintPosition + mValues[hintGroup]) {
+                    hintPosition += mValues[hintGroup];
+                    hintGroup++;
+                    if (hintGroup >= mSize) {
+                        break;
+                    }
+                } else {
+                    mHintGroup = hintGroup;
+                    mHintPosition = hintPosition;
+                    return hintGroup;
+                }
+            }
+        }
+        int groupIndex = 0;
+        int remain = position;
+        for (int bit = Integer.highestOneBit(mSize); bit > 0; bit >>= 1) {
+            final int next = groupIndex + bit;
+            if (next <= mSize && mTree[next] <= remain) {
+                groupIndex = next;
+                remain -= mTree[next];
+            }
+        }
+        if (groupIndex < mSize) {
+            mHintGroup = groupIndex;
+            mHintPosition = position - remain;
+        }
+        return groupIndex;
+    }
+}
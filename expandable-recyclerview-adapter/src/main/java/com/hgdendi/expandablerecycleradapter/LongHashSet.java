@@ -0,0 +1,165 @@
+/**
+ * LongHashSet
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+import java.util.Arrays;
+
+/**
+ * open addressing hash set of primitive long , without boxing
+ */
+final class LongHashSet {
+
+    private static final int MIN_CAPACITY = 8;
+    /**
+     * marks an empty slot , key 0 itself is recorded by mHasZero
+     */
+    private static final long EMPTY = 0L;
+
+    private long[] mKeys;
+    private int mSize;
+    private boolean mHasZero;
+
+    LongHashSet() {
+        mKeys = new long[MIN_CAPACITY];
+    }
+
+    LongHashSet(LongHashSet other) {
+        mKeys = other.mKeys.clone();
+        mSize = other.mSize;
+        mHasZero = other.mHasZero;
+    }
+
+    int size() {
+        return mHasZero ? mSize + 1 : mSize;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    boolean contains(long key) {
+        if (key == EMPTY) {
+            return mHasZero;
+        }
+        final int mask = mKeys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (mKeys[i] == EMPTY) {
+                return false;
+            }
+            if (mKeys[i] == key) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return whether the key is newly added
+     */
+    boolean add(long key) {
+        if (key == EMPTY) {
+            final boolean added = !mHasZero;
+            mHasZero = true;
+            return added;
+        }
+        final int mask = mKeys.length - 1;
+        int i = hash(key) & mask;
+        for (; mKeys[i] != EMPTY; i = (i + 1) & mask) {
+            if (mKeys[i] == key) {
+                return false;
+            }
+        }
+        mKeys[i] = key;
+        // keep load factor under 0.5
+        if (++mSize * 2 > mKeys.length) {
+            rehash(mKeys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the key is removed
+     */
+    boolean remove(long key) {
+        if (key == EMPTY) {
+            final boolean removed = mHasZero;
+            mHasZero = false;
+            return removed;
+        }
+        final int mask = mKeys.length - 1;
+        int i = hash(key) & mask;
+        for (; mKeys[i] != key; i = (i + 1) & mask) {
+            if (mKeys[i] == EMPTY) {
+                return false;
+            }
+        }
+        mKeys[i] = EMPTY;
+        mSize--;
+        // shift back following keys of the same cluster , so that lookups are not broken by the hole
+        for (int j = (i + 1) & mask; mKeys[j] != EMPTY; j = (j + 1) & mask) {
+            final int slot = hash(mKeys[j]) & mask;
+            if (((j - slot) & mask) >= ((j - i) & mask)) {
+                mKeys[i] = mKeys[j];
+                mKeys[j] = EMPTY;
+                i = j;
+            }
+        }
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(mKeys, EMPTY);
+        mSize = 0;
+        mHasZero = false;
+    }
+
+    /**
+     * @return all keys in arbitrary order
+     */
+    long[] toArray() {
+        final long[] result = new long[size()];
+        int i = 0;
+        if (mHasZero) {
+            result[i++] = EMPTY;
+        }
+        for (long key : mKeys) {
+            if (key != EMPTY) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void rehash(int capacity) {
+        final long[] keys = mKeys;
+        mKeys = new long[capacity];
+        final int mask = capacity - 1;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                int i = hash(key) & mask;
+                while (mKeys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                mKeys[i] = key;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        // murmur3 finalizer
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
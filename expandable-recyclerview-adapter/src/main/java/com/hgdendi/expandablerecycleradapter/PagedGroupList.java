@@ -0,0 +1,212 @@
+/**
+ * PagedGroupList
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.WorkerThread;
+import android.util.SparseArray;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * group list of fixed size whose groups are loaded page by page ,
+ * only a bounded num of pages are kept , groups not loaded are null placeholders.
+ * <p>
+ * Usage : return {@link #size()} and {@link #get(int)} from
+ * {@link BaseExpandableRecyclerViewAdapter#getGroupCount()} and {@link BaseExpandableRecyclerViewAdapter#getGroupItem(int)} ,
+ * and attach it by {@link BaseExpandableRecyclerViewAdapter#setPagedGroupList(PagedGroupList, ViewProducer)}.
+ * Pages are loaded by the adapter around bound groups.
+ *
+ * @param <GroupBean> group type
+ */
+public final class PagedGroupList<GroupBean> {
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final GroupPageLoader<GroupBean> mLoader;
+    private final int mGroupCount;
+    private final int mPageSize;
+    private final int mMaxCachedPages;
+    /**
+     * loaded groups keyed by page index , read without touching the order of mRecentPages
+     */
+    private final SparseArray<List<GroupBean>> mPages = new SparseArray<>();
+    /**
+     * indexes of loaded pages in least recently used order , touched when groups of a page are bound
+     */
+    private final LinkedHashMap<Integer, Boolean> mRecentPages;
+    private final BitSet mLoadingPages = new BitSet();
+
+    /**
+     * @param loader         loader of groups
+     * @param groupCount     num of all groups
+     * @param pageSize       num of groups per page
+     * @param maxCachedPages max num of loaded pages to keep , at least 2 to hold the page around the visible groups ,
+     *                       evicted groups still shown are rebound as placeholders and loaded again
+     */
+    public PagedGroupList(GroupPageLoader<GroupBean> loader, int groupCount, int pageSize, int maxCachedPages) {
+        if (loader == null || groupCount < 0 || pageSize <= 0 || maxCachedPages < 2) {
+            throw new IllegalArgumentException("invalid loader " + loader + " or groupCount " + groupCount
+                    + " or pageSize " + pageSize + " or maxCachedPages " + maxCachedPages);
+        }
+        mLoader = loader;
+        mGroupCount = groupCount;
+        mPageSize = pageSize;
+        mMaxCachedPages = maxCachedPages;
+        mRecentPages = new LinkedHashMap<>(maxCachedPages * 2, 0.75f, true);
+    }
+
+    /**
+     * @return num of all groups , including not loaded ones
+     */
+    public int size() {
+        return mGroupCount;
+    }
+
+    /**
+     * @param groupIndex index of group
+     * @return group , or null if it is not loaded yet
+     */
+    public GroupBean get(int groupIndex) {
+        if (groupIndex < 0 || groupIndex >= mGroupCount) {
+            throw new IndexOutOfBoundsException("groupIndex " + groupIndex + " , size " + mGroupCount);
+        }
+        final List<GroupBean> page = mPages.get(groupIndex / mPageSize);
+        final int offset = groupIndex % mPageSize;
+        return page == null || offset >= page.size() ? null : page.get(offset);
+    }
+
+    /**
+     * @return whether the group is loaded
+     */
+    public boolean isLoaded(int groupIndex) {
+        return mPages.get(groupIndex / mPageSize) != null;
+    }
+
+    int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * @return whether the page exists and is neither loaded nor loading
+     */
+    private boolean isPageLoadNeeded(int pageIndex) {
+        return pageIndex >= 0 && pageIndex * mPageSize < mGroupCount
+                && !mLoadingPages.get(pageIndex) && mPages.get(pageIndex) == null;
+    }
+
+    /**
+     * mark the page as most recently used
+     */
+    void touchPage(int pageIndex) {
+        if (mPages.get(pageIndex) != null) {
+            mRecentPages.get(pageIndex);
+        }
+    }
+
+    /**
+     * load the page on executor unless it is loaded or loading ,
+     * a null or empty result is not kept , so that the page is loaded again when its groups are bound
+     *
+     * @param pageIndex index of page
+     * @param executor  background executor
+     * @param callback  called on main thread after the page is loaded
+     */
+    void loadPage(final int pageIndex, Executor executor, final LoadCallback<GroupBean> callback) {
+        if (!isPageLoadNeeded(pageIndex)) {
+            return;
+        }
+        mLoadingPages.set(pageIndex);
+        final int startIndex = pageIndex * mPageSize;
+        final int count = Math.min(mPageSize, mGroupCount - startIndex);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<GroupBean> groups = mLoader.loadGroupPage(startIndex, count);
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mLoadingPages.clear(pageIndex);
+                        if (groups != null && !groups.isEmpty()) {
+                            callback.onGroupPageLoaded(PagedGroupList.this, pageIndex, startIndex, groups);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * keep loaded groups of a page , then evict least recently used pages exceeding maxCachedPages
+     *
+     * @param pageIndex index of page
+     * @param groups    loaded groups
+     * @param policy    decides whether a page can be evicted
+     * @return groups of evicted pages keyed by page index
+     */
+    SparseArray<List<GroupBean>> putPage(int pageIndex, List<GroupBean> groups, EvictPolicy policy) {
+        mPages.put(pageIndex, groups);
+        mRecentPages.put(pageIndex, Boolean.TRUE);
+        final SparseArray<List<GroupBean>> result = new SparseArray<>();
+        final Iterator<Integer> iterator = mRecentPages.keySet().iterator();
+        // pages which can not be evicted are skipped , so that the cache may exceed maxCachedPages
+        while (mRecentPages.size() > mMaxCachedPages && iterator.hasNext()) {
+            final int index = iterator.next();
+            final List<GroupBean> page = mPages.get(index);
+            if (index != pageIndex && policy.canEvictPage(index * mPageSize, page.size())) {
+                result.put(index, page);
+                mPages.delete(index);
+                iterator.remove();
+            }
+        }
+        return result;
+    }
+
+    interface LoadCallback<GroupBean> {
+        /**
+         * @param pagedGroupList list the page is loaded for
+         * @param pageIndex      index of page
+         * @param startIndex     index of the first group of page
+         * @param groups         loaded groups , not empty
+         */
+        void onGroupPageLoaded(PagedGroupList<GroupBean> pagedGroupList, int pageIndex, int startIndex, List<GroupBean> groups);
+    }
+
+    interface EvictPolicy {
+        /**
+         * @param groupIndexStart index of the first group of page
+         * @param groupCount      num of groups of page
+         * @return whether the page can be evicted
+         */
+        boolean canEvictPage(int groupIndexStart, int groupCount);
+    }
+
+    public interface GroupPageLoader<GroupBean> {
+        /**
+         * called on background thread
+         *
+         * @param startIndex index of the first group to load
+         * @param count      num of groups to load
+         * @return groups from startIndex , missing groups are kept as placeholders ,
+         * null or empty if loading failed , then the page is loaded again when its groups are bound
+         */
+        @WorkerThread
+        List<GroupBean> loadGroupPage(int startIndex, int count);
+    }
+}
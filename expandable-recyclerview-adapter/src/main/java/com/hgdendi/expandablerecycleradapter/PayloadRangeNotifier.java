@@ -0,0 +1,64 @@
+/**
+ * PayloadRangeNotifier
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * coalesce item changes fed in ascending order
+ * into as few {@link RecyclerView.Adapter#notifyItemRangeChanged(int, int, Object)} as possible
+ */
+final class PayloadRangeNotifier {
+
+    private final RecyclerView.Adapter<?> mAdapter;
+    private final Object mPayload;
+    private int mStart;
+    private int mCount;
+
+    PayloadRangeNotifier(RecyclerView.Adapter<?> adapter, Object payload) {
+        mAdapter = adapter;
+        mPayload = payload;
+    }
+
+    void add(int position) {
+        addRange(position, 1);
+    }
+
+    /**
+     * @param start start position , should not be less than start of previous range
+     * @param count num of items
+     */
+    void addRange(int start, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (mCount > 0 && start >= mStart && start <= mStart + mCount) {
+            mCount = Math.max(mCount, start + count - mStart);
+            return;
+        }
+        flush();
+        mStart = start;
+        mCount = count;
+    }
+
+    /**
+     * dispatch pending range
+     */
+    void flush() {
+        if (mCount > 0) {
+            mAdapter.notifyItemRangeChanged(mStart, mCount, mPayload);
+            mCount = 0;
+        }
+    }
+}
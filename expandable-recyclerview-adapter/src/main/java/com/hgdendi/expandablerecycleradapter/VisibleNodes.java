@@ -0,0 +1,147 @@
+/**
+ * VisibleNodes
+ * https://github.com/hgDendi/ExpandableRecyclerView
+ * <p>
+ * Copyright (c) 2017 hg.dendi
+ * <p>
+ * MIT License
+ * https://rem.mit-license.org/
+ * <p>
+ * email: hg.dendi@gmail.com
+ * Date: 2026-10-18
+ */
+
+package com.hgdendi.expandablerecycleradapter;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * growable array of visible nodes and their depth in adapter position order ,
+ * spliced when a node is expanded or folded
+ *
+ * @param <Node> node type
+ */
+final class VisibleNodes<Node> {
+
+    private Object[] mNodes = new Object[16];
+    private int[] mDepths = new int[16];
+    private int mSize;
+
+    /**
+     * node -> position , built lazily after {@link #clear()} , then kept keyed by all nodes while splicing.
+     * Positions before mPositionMapValidEnd are up to date , the others are refreshed lazily
+     * since a splice only shifts the nodes after it
+     */
+    private final Map<Node, Integer> mPositionMap = new IdentityHashMap<>();
+    private boolean mPositionMapDirty = true;
+    private int mPositionMapValidEnd;
+
+    int size() {
+        return mSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    Node get(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("position " + position + " , size " + mSize);
+        }
+        return (Node) mNodes[position];
+    }
+
+    int depthAt(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("position " + position + " , size " + mSize);
+        }
+        return mDepths[position];
+    }
+
+    /**
+     * @param node Node
+     * @return position of node , or -1 if it is not contained
+     */
+    int indexOf(Node node) {
+        if (mPositionMapDirty) {
+            mPositionMap.clear();
+            mPositionMapValidEnd = 0;
+            mPositionMapDirty = false;
+        } else {
+            final Integer result = mPositionMap.get(node);
+            if (result == null) {
+                return -1;
+            }
+            if (result < mPositionMapValidEnd) {
+                return result;
+            }
+        }
+        // refresh positions of nodes shifted by splicing
+        for (int i = mPositionMapValidEnd; i < mSize; i++) {
+            mPositionMap.put(get(i), i);
+        }
+        mPositionMapValidEnd = mSize;
+        final Integer result = mPositionMap.get(node);
+        return result == null ? -1 : result;
+    }
+
+    void add(Node node, int depth) {
+        ensureCapacity(mSize + 1);
+        mNodes[mSize] = node;
+        mDepths[mSize] = depth;
+        if (!mPositionMapDirty) {
+            mPositionMap.put(node, mSize);
+        }
+        mSize++;
+    }
+
+    void insert(int position, VisibleNodes<Node> other) {
+        ensureCapacity(mSize + other.mSize);
+        System.arraycopy(mNodes, position, mNodes, position + other.mSize, mSize - position);
+        System.arraycopy(mDepths, position, mDepths, position + other.mSize, mSize - position);
+        System.arraycopy(other.mNodes, 0, mNodes, position, other.mSize);
+        System.arraycopy(other.mDepths, 0, mDepths, position, other.mSize);
+        mSize += other.mSize;
+        if (!mPositionMapDirty) {
+            for (int i = 0; i < other.mSize; i++) {
+                mPositionMap.put(other.get(i), position + i);
+            }
+            mPositionMapValidEnd = Math.min(mPositionMapValidEnd, position);
+        }
+    }
+
+    void remove(int position, int count) {
+        if (!mPositionMapDirty) {
+            for (int i = position; i < position + count; i++) {
+                mPositionMap.remove(mNodes[i]);
+            }
+            mPositionMapValidEnd = Math.min(mPositionMapValidEnd, position);
+        }
+        System.arraycopy(mNodes, position + count, mNodes, position, mSize - position - count);
+        System.arraycopy(mDepths, position + count, mDepths, position, mSize - position - count);
+        for (int i = mSize - count; i < mSize; i++) {
+            mNodes[i] = null;
+        }
+        mSize -= count;
+    }
+
+    void clear() {
+        for (int i = 0; i < mSize; i++) {
+            mNodes[i] = null;
+        }
+        mSize = 0;
+        mPositionMap.clear();
+        mPositionMapDirty = true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (mNodes.length >= capacity) {
+            return;
+        }
+        final int length = Math.max(capacity, mNodes.length * 2);
+        final Object[] nodes = new Object[length];
+        final int[] depths = new int[length];
+        System.arraycopy(mNodes, 0, nodes, 0, mSize);
+        System.arraycopy(mDepths, 0, depths, 0, mSize);
+        mNodes = nodes;
+        mDepths = depths;
+    }
+}
@@ -0,0 +1,582 @@
+package com.hgdendi.expandablerecycleradapter;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * local unit test of {@link BaseExpandableRecyclerViewAdapter} ,
+ * notifications are replayed on a counter of rows to check they match {@link BaseExpandableRecyclerViewAdapter#getItemCount()}
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 27)
+public class BaseExpandableRecyclerViewAdapterTest {
+
+    private TestAdapter mAdapter;
+    private RowCounter mRowCounter;
+
+    @Before
+    public void setUp() throws Exception {
+        mAdapter = new TestAdapter();
+        mAdapter.setBackgroundExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                command.run();
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            mAdapter.mGroups.add(new TestGroup("g" + i, i % 4));
+        }
+        mRowCounter = new RowCounter(mAdapter);
+    }
+
+    @Test
+    public void notifyGroupChanged_replacedGroupIsFound() throws Exception {
+        final TestGroup group = new TestGroup("r", 2);
+        mAdapter.mGroups.set(5, group);
+        mAdapter.notifyGroupChanged(5);
+        assertEquals(5, mAdapter.getGroupIndex(group));
+        assertTrue(mAdapter.expandGroup(group));
+        assertTrue(mAdapter.isGroupExpanding(group));
+        assertTrue(mAdapter.isGroupExpanding(5));
+        mRowCounter.assertMatches();
+        assertTrue(mAdapter.foldGroup(group));
+        assertFalse(mAdapter.isGroupExpanding(5));
+        mRowCounter.assertMatches();
+    }
+
+    @Test
+    public void notifyGroupChanged_resizesRowsOfExpandingGroup() throws Exception {
+        mAdapter.expandGroup(3);
+        mRowCounter.assertMatches();
+        final TestGroup group = new TestGroup("r", 7);
+        mAdapter.mGroups.set(3, group);
+        mAdapter.notifyGroupChanged(3);
+        mRowCounter.assertMatches();
+        assertTrue(mAdapter.isGroupExpanding(group));
+        assertEquals(11, mAdapter.getAdapterPosition(4));
+        mAdapter.mGroups.set(3, new TestGroup("s", 1));
+        mAdapter.notifyGroupChanged(3);
+        mRowCounter.assertMatches();
+        assertEquals(5, mAdapter.getAdapterPosition(4));
+    }
+
+    @Test
+    public void getGroupIndex_groupReplacedWithoutNotifyingIsFound() throws Exception {
+        assertEquals(2, mAdapter.getGroupIndex(mAdapter.mGroups.get(2)));
+        final TestGroup group = new TestGroup("r", 1);
+        mAdapter.mGroups.set(2, group);
+        assertEquals(2, mAdapter.getGroupIndex(group));
+        assertEquals(-1, mAdapter.getGroupIndex(new TestGroup("missing", 1)));
+    }
+
+    @Test
+    public void notifyGroupRangeInserted_insertedGroupsAreFound() throws Exception {
+        mAdapter.expandGroup(1);
+        final TestGroup first = new TestGroup("i0", 1);
+        final TestGroup second = new TestGroup("i1", 2);
+        mAdapter.mGroups.add(1, first);
+        mAdapter.mGroups.add(2, second);
+        mAdapter.notifyGroupRangeInserted(1, 2);
+        mRowCounter.assertMatches();
+        assertEquals(1, mAdapter.getGroupIndex(first));
+        assertEquals(2, mAdapter.getGroupIndex(second));
+        assertTrue(mAdapter.isGroupExpanding(3));
+        assertEquals(3, mAdapter.getGroupIndex(mAdapter.mGroups.get(3)));
+    }
+
+    @Test
+    public void rawNotifyItemRangeInserted_invalidatesItemCount() throws Exception {
+        mAdapter.setDebugEnabled(true);
+        mAdapter.expandGroup(2);
+        final TestGroup expanded = mAdapter.mGroups.get(2);
+        final int itemCount = mAdapter.getItemCount();
+        final TestGroup group = new TestGroup("raw", 3);
+        mAdapter.mGroups.add(1, group);
+        mAdapter.notifyItemRangeInserted(1, 1);
+        assertEquals(itemCount + 1, mAdapter.getItemCount());
+        mRowCounter.assertMatches();
+        assertEquals(1, mAdapter.getGroupIndex(group));
+        // expand status is matched again
+        assertFalse(mAdapter.isGroupExpanding(2));
+        assertTrue(mAdapter.isGroupExpanding(expanded));
+        assertEquals(3, mAdapter.getGroupIndex(expanded));
+    }
+
+    @Test
+    public void rawNotifyItemRangeRemoved_invalidatesItemCount() throws Exception {
+        mAdapter.setDebugEnabled(true);
+        mAdapter.expandGroup(3);
+        final TestGroup expanded = mAdapter.mGroups.get(3);
+        final int itemCount = mAdapter.getItemCount();
+        final TestGroup removed = mAdapter.mGroups.remove(1);
+        mAdapter.notifyItemRemoved(1);
+        assertEquals(itemCount - 1, mAdapter.getItemCount());
+        mRowCounter.assertMatches();
+        assertEquals(-1, mAdapter.getGroupIndex(removed));
+        assertFalse(mAdapter.isGroupExpanding(3));
+        assertTrue(mAdapter.isGroupExpanding(2));
+        assertTrue(mAdapter.isGroupExpanding(expanded));
+    }
+
+    @Test
+    public void rawNotifyItemMoved_invalidatesGroupIndexes() throws Exception {
+        mAdapter.expandGroup(1);
+        final TestGroup moved = mAdapter.mGroups.remove(1);
+        mAdapter.mGroups.add(0, moved);
+        mAdapter.notifyItemMoved(1, 0);
+        assertEquals(0, mAdapter.getGroupIndex(moved));
+        assertTrue(mAdapter.isGroupExpanding(0));
+        assertFalse(mAdapter.isGroupExpanding(1));
+        mRowCounter.assertMatches();
+    }
+
+    @Test
+    public void rawNotifyItemChanged_replacedGroupIsFound() throws Exception {
+        assertEquals(6, mAdapter.getGroupIndex(mAdapter.mGroups.get(6)));
+        assertEquals(-1, mAdapter.getGroupIndex(new TestGroup("missing", 1)));
+        final TestGroup group = new TestGroup("r", 2);
+        mAdapter.mGroups.set(7, group);
+        mAdapter.notifyItemChanged(7);
+        assertEquals(7, mAdapter.getGroupIndex(group));
+    }
+
+    @Test
+    public void expandAndFold_keepExpandStatusOfOtherGroups() throws Exception {
+        mAdapter.setDebugEnabled(true);
+        mAdapter.expandGroup(1);
+        mAdapter.expandGroup(2);
+        mAdapter.foldGroup(1);
+        mAdapter.expandAll();
+        mRowCounter.assertMatches();
+        for (int i = 0; i < mAdapter.getGroupCount(); i++) {
+            assertEquals(mAdapter.mGroups.get(i).isExpandable(), mAdapter.isGroupExpanding(i));
+        }
+        mAdapter.foldAll();
+        mRowCounter.assertMatches();
+        assertEquals(mAdapter.getGroupCount(), mAdapter.getItemCount());
+    }
+
+    @Test
+    public void groupsWithoutId_keepExpandStatusByIndexWithoutEquals() throws Exception {
+        mAdapter.mHasGroupIds = false;
+        for (TestGroup group : mAdapter.mGroups) {
+            group.mIsEqualsForbidden = true;
+        }
+        mAdapter.expandGroup(1);
+        mAdapter.expandGroup(3);
+        mAdapter.notifyDataSetChanged();
+        assertTrue(mAdapter.isGroupExpanding(1));
+        assertTrue(mAdapter.isGroupExpanding(3));
+        // a raw insert at a group item shifts expand status of the following groups
+        final int position = mAdapter.getAdapterPosition(2);
+        final TestGroup group = new TestGroup("raw", 2);
+        group.mIsEqualsForbidden = true;
+        mAdapter.mGroups.add(2, group);
+        mAdapter.notifyItemInserted(position);
+        mRowCounter.assertMatches();
+        assertTrue(mAdapter.isGroupExpanding(1));
+        assertFalse(mAdapter.isGroupExpanding(3));
+        assertTrue(mAdapter.isGroupExpanding(4));
+        // the removed group is expanding with 1 child
+        final int removedPosition = mAdapter.getAdapterPosition(1);
+        mAdapter.mGroups.remove(1);
+        mAdapter.notifyItemRangeRemoved(removedPosition, 2);
+        mRowCounter.assertMatches();
+        for (int i = 0; i < mAdapter.getGroupCount(); i++) {
+            assertEquals(i == 3, mAdapter.isGroupExpanding(i));
+        }
+    }
+
+    @Test
+    public void sortChildren_reordersShownChildrenOnly() throws Exception {
+        final TestGroup group = mAdapter.mGroups.get(3);
+        mAdapter.expandGroup(3);
+        mAdapter.sortChildren(group, Collections.<String>reverseOrder());
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(Arrays.asList("g3-0", "g3-1", "g3-2"), group.mChildren);
+        assertEquals(Arrays.asList("g3-2", "g3-1", "g3-0"), shownChildren(3));
+        mRowCounter.assertMatches();
+        // sorting again is composed with the current order
+        mAdapter.sortChildren(group, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return o1.equals("g3-1") ? -1 : o2.equals("g3-1") ? 1 : 0;
+            }
+        });
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(Arrays.asList("g3-1", "g3-2", "g3-0"), shownChildren(3));
+        assertEquals(Arrays.asList("g3-0", "g3-1", "g3-2"), group.mChildren);
+    }
+
+    @Test
+    public void sortChildren_insertedChildIsShownInOrderOfGroupBean() throws Exception {
+        final TestGroup group = mAdapter.mGroups.get(2);
+        mAdapter.expandGroup(2);
+        mAdapter.sortChildren(group, Collections.<String>reverseOrder());
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(Arrays.asList("g2-1", "g2-0"), shownChildren(2));
+        group.mChildren.add(1, "new");
+        mAdapter.notifyChildInserted(2, 1);
+        mRowCounter.assertMatches();
+        assertEquals(group.mChildren, shownChildren(2));
+    }
+
+    @Test
+    public void sortGroups_keepsExpandStatusAndSortedChildrenWithGroup() throws Exception {
+        final TestGroup first = mAdapter.mGroups.get(1);
+        final TestGroup second = mAdapter.mGroups.get(3);
+        mAdapter.expandGroup(1);
+        mAdapter.expandGroup(3);
+        mAdapter.sortChildren(second, Collections.<String>reverseOrder());
+        Robolectric.flushForegroundThreadScheduler();
+        mAdapter.sortGroups(new Comparator<TestGroup>() {
+            @Override
+            public int compare(TestGroup o1, TestGroup o2) {
+                return o2.mName.compareTo(o1.mName);
+            }
+        });
+        Robolectric.flushForegroundThreadScheduler();
+        mRowCounter.assertMatches();
+        assertEquals("g9", mAdapter.mGroups.get(0).mName);
+        assertEquals(8, mAdapter.getGroupIndex(first));
+        assertEquals(6, mAdapter.getGroupIndex(second));
+        for (int i = 0; i < mAdapter.getGroupCount(); i++) {
+            final TestGroup group = mAdapter.mGroups.get(i);
+            assertEquals(group == first || group == second, mAdapter.isGroupExpanding(i));
+        }
+        assertEquals(Arrays.asList("g3-2", "g3-1", "g3-0"), shownChildren(6));
+        assertEquals(Arrays.asList("g1-0"), shownChildren(8));
+        // g9 ~ g4 , then g3 with 3 children
+        assertEquals(10, mAdapter.getAdapterPosition(7));
+    }
+
+    @Test
+    public void getItemId_combinesIdsInRange() throws Exception {
+        final TestGroup group = mAdapter.mGroups.get(2);
+        group.mId = 0x7FFFFFFFL;
+        mAdapter.mChildIdOffset = 0xFFFFFFFEL;
+        mAdapter.expandGroup(2);
+        final int position = mAdapter.getAdapterPosition(2);
+        assertEquals(0x7FFFFFFF00000000L, mAdapter.getItemId(position));
+        assertEquals(0xFFFFFFFFFFFFFFFEL, mAdapter.getItemId(position + 1));
+        assertEquals(0xFFFFFFFFFFFFFFFFL, mAdapter.getItemId(position + 2));
+    }
+
+    @Test
+    public void getItemId_groupIdOutOfRangeThrows() throws Exception {
+        mAdapter.mGroups.get(2).mId = 0x80000000L;
+        assertItemIdThrows(mAdapter.getAdapterPosition(2));
+        mAdapter.mGroups.get(2).mId = -2;
+        assertItemIdThrows(mAdapter.getAdapterPosition(2));
+    }
+
+    @Test
+    public void getItemId_childIdOutOfRangeThrows() throws Exception {
+        mAdapter.mChildIdOffset = 0xFFFFFFFFL;
+        mAdapter.expandGroup(2);
+        final int position = mAdapter.getAdapterPosition(2);
+        mAdapter.getItemId(position + 1);
+        assertItemIdThrows(position + 2);
+    }
+
+    @Test
+    public void onRestoreInstanceState_matchesExpandingGroupsById() throws Exception {
+        mAdapter.expandGroup(1);
+        mAdapter.expandGroup(3);
+        final Bundle state = new Bundle();
+        mAdapter.onSaveInstanceState(state);
+        // the same groups in reversed order
+        final TestAdapter restored = new TestAdapter();
+        for (int i = mAdapter.getGroupCount() - 1; i >= 0; i--) {
+            final TestGroup group = new TestGroup("g" + i, i % 4);
+            group.mId = mAdapter.mGroups.get(i).mId;
+            restored.mGroups.add(group);
+        }
+        final RowCounter rowCounter = new RowCounter(restored);
+        restored.onRestoreInstanceState(state);
+        rowCounter.assertMatches();
+        for (int i = 0; i < restored.getGroupCount(); i++) {
+            assertEquals(i == 6 || i == 8, restored.isGroupExpanding(i));
+        }
+    }
+
+    @Test
+    public void filterGroups_restoresExpandStatusWhenCleared() throws Exception {
+        final List<TestGroup> sourceGroups = new ArrayList<>(mAdapter.mGroups);
+        mAdapter.expandGroup(1);
+        mAdapter.filterGroups(sourceGroups, new BaseExpandableRecyclerViewAdapter.GroupFilter<TestGroup, String>() {
+            @Override
+            public boolean matchGroup(TestGroup groupBean) {
+                return false;
+            }
+
+            @Override
+            public boolean matchChild(TestGroup groupBean, String childBean) {
+                return "g3-1".equals(childBean);
+            }
+
+            @Override
+            public TestGroup onCreateFilteredGroup(TestGroup groupBean, List<String> children) {
+                final TestGroup group = new TestGroup(groupBean.mName, 0);
+                group.mId = groupBean.mId;
+                group.mChildren.addAll(children);
+                return group;
+            }
+        });
+        Robolectric.flushForegroundThreadScheduler();
+        mRowCounter.assertMatches();
+        // the group kept for its matching child is expanded automatically
+        assertEquals(1, mAdapter.getGroupCount());
+        assertTrue(mAdapter.isGroupExpanding(0));
+        assertEquals(Collections.singletonList("g3-1"), shownChildren(0));
+
+        mAdapter.filterGroups(sourceGroups, null);
+        Robolectric.flushForegroundThreadScheduler();
+        mRowCounter.assertMatches();
+        assertEquals(sourceGroups.size(), mAdapter.getGroupCount());
+        for (int i = 0; i < mAdapter.getGroupCount(); i++) {
+            assertEquals(i == 1, mAdapter.isGroupExpanding(i));
+        }
+    }
+
+    @Test
+    public void setChildPageLoader_loadsChildrenWhenLoadingRowIsBound() throws Exception {
+        final List<Integer> startIndexes = new ArrayList<>();
+        mAdapter.setChildPageLoader(new BaseExpandableRecyclerViewAdapter.ChildPageLoader<TestGroup, String>() {
+            @Override
+            public List<String> loadChildPage(TestGroup groupBean, int startIndex, int pageSize) {
+                startIndexes.add(startIndex);
+                return new ArrayList<>(groupBean.mChildren.subList(startIndex,
+                        Math.min(startIndex + pageSize, groupBean.mChildren.size())));
+            }
+        }, 2, new ViewProducer() {
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent) {
+                return new ViewProducer.DefaultEmptyViewHolder(new View(parent.getContext()));
+            }
+
+            @Override
+            public void onBindViewHolder(RecyclerView.ViewHolder holder) {
+            }
+        });
+        mRowCounter.assertMatches();
+        // g3 with 3 children shows a loading row only
+        mAdapter.expandGroup(3);
+        mRowCounter.assertMatches();
+        assertEquals(11, mAdapter.getItemCount());
+        assertNull(mAdapter.getChildItem(3, 0));
+
+        bindRow(mAdapter.getAdapterPosition(3) + 1);
+        Robolectric.flushForegroundThreadScheduler();
+        mRowCounter.assertMatches();
+        assertEquals(13, mAdapter.getItemCount());
+        assertEquals("g3-1", mAdapter.getChildItem(3, 1));
+        assertNull(mAdapter.getChildItem(3, 2));
+
+        // the last page has less than pageSize children , so the loading row is removed
+        bindRow(mAdapter.getAdapterPosition(3) + 3);
+        Robolectric.flushForegroundThreadScheduler();
+        mRowCounter.assertMatches();
+        assertEquals(13, mAdapter.getItemCount());
+        assertEquals("g3-2", mAdapter.getChildItem(3, 2));
+        assertEquals(Arrays.asList(0, 2), startIndexes);
+    }
+
+    private void bindRow(int position) {
+        final RecyclerView.ViewHolder holder = mAdapter.createViewHolder(
+                new FrameLayout(RuntimeEnvironment.application), mAdapter.getItemViewType(position));
+        mAdapter.bindViewHolder(holder, position);
+    }
+
+    private void assertItemIdThrows(int position) {
+        try {
+            mAdapter.getItemId(position);
+            fail("id of position " + position + " is out of range");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private List<String> shownChildren(int groupIndex) {
+        final List<String> result = new ArrayList<>();
+        for (int i = 0; i < mAdapter.getGroupItem(groupIndex).getChildCount(); i++) {
+            result.add(mAdapter.getChildItem(groupIndex, i));
+        }
+        return result;
+    }
+
+    /**
+     * replays notifications on the num of rows , as RecyclerView does
+     */
+    static final class RowCounter extends RecyclerView.AdapterDataObserver {
+        private final RecyclerView.Adapter<?> mAdapter;
+        private int mRowCount;
+
+        RowCounter(RecyclerView.Adapter<?> adapter) {
+            mAdapter = adapter;
+            mRowCount = adapter.getItemCount();
+            adapter.registerAdapterDataObserver(this);
+        }
+
+        @Override
+        public void onChanged() {
+            mRowCount = mAdapter.getItemCount();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            assertTrue(positionStart <= mRowCount);
+            mRowCount += itemCount;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            assertTrue(positionStart + itemCount <= mRowCount);
+            mRowCount -= itemCount;
+        }
+
+        void assertMatches() {
+            assertEquals(mRowCount, mAdapter.getItemCount());
+        }
+    }
+
+    static final class TestGroup implements BaseExpandableRecyclerViewAdapter.BaseGroupBean<String> {
+        private static int sNextId;
+
+        long mId = sNextId++;
+        final String mName;
+        final List<String> mChildren = new ArrayList<>();
+
+        boolean mIsEqualsForbidden;
+
+        TestGroup(String name, int childCount) {
+            mName = name;
+            for (int i = 0; i < childCount; i++) {
+                mChildren.add(name + "-" + i);
+            }
+        }
+
+        @Override
+        public int getChildCount() {
+            return mChildren.size();
+        }
+
+        @Override
+        public String getChildAt(int childIndex) {
+            return mChildren.get(childIndex);
+        }
+
+        @Override
+        public boolean isExpandable() {
+            return !mChildren.isEmpty();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            assertFalse(mIsEqualsForbidden);
+            return super.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            assertFalse(mIsEqualsForbidden);
+            return super.hashCode();
+        }
+    }
+
+    static final class TestGroupViewHolder extends BaseExpandableRecyclerViewAdapter.BaseGroupViewHolder {
+        TestGroupViewHolder(View itemView) {
+            super(itemView);
+        }
+
+        @Override
+        protected void onExpandStatusChanged(RecyclerView.Adapter<?> relatedAdapter, boolean isExpanding) {
+        }
+    }
+
+    static final class TestChildViewHolder extends RecyclerView.ViewHolder {
+        TestChildViewHolder(View itemView) {
+            super(itemView);
+        }
+    }
+
+    static class TestAdapter extends BaseExpandableRecyclerViewAdapter<TestGroup, String, TestGroupViewHolder, TestChildViewHolder> {
+        final List<TestGroup> mGroups = new ArrayList<>();
+        boolean mHasGroupIds = true;
+        long mChildIdOffset;
+
+        @Override
+        public int getGroupCount() {
+            return mGroups.size();
+        }
+
+        @Override
+        public TestGroup getGroupItem(int groupIndex) {
+            return mGroups.get(groupIndex);
+        }
+
+        @Override
+        protected long getGroupId(TestGroup groupBean) {
+            return mHasGroupIds ? groupBean.mId : RecyclerView.NO_ID;
+        }
+
+        @Override
+        protected long getChildId(TestGroup groupBean, String childBean) {
+            return mChildIdOffset + groupBean.mChildren.indexOf(childBean);
+        }
+
+        @Override
+        public TestGroupViewHolder onCreateGroupViewHolder(ViewGroup parent, int groupViewType) {
+            return new TestGroupViewHolder(new View(parent.getContext()));
+        }
+
+        @Override
+        public void onBindGroupViewHolder(TestGroupViewHolder holder, TestGroup groupBean, boolean isExpand) {
+        }
+
+        @Override
+        public TestChildViewHolder onCreateChildViewHolder(ViewGroup parent, int childViewType) {
+            return new TestChildViewHolder(new View(parent.getContext()));
+        }
+
+        @Override
+        public void onBindChildViewHolder(TestChildViewHolder holder, TestGroup groupBean, String childBean) {
+        }
+
+        @Override
+        protected void onApplyGroups(@NonNull List<TestGroup> groups) {
+            mGroups.clear();
+            mGroups.addAll(groups);
+        }
+
+        @Override
+        protected void onApplyGroupChildren(@NonNull TestGroup groupBean, @NonNull List<String> children) {
+            groupBean.mChildren.clear();
+            groupBean.mChildren.addAll(children);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.hgdendi.expandablerecycleradapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * local unit test of {@link BaseTreeRecyclerViewAdapter} ,
+ * notifications are replayed on a list of row names to check they match the visible nodes
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 27)
+public class BaseTreeRecyclerViewAdapterTest {
+
+    private TestAdapter mAdapter;
+    private RowList mRows;
+    private TestNode mA;
+    private TestNode mA0;
+    private TestNode mB;
+
+    @Before
+    public void setUp() throws Exception {
+        mAdapter = new TestAdapter();
+        mA = new TestNode("a", new TestNode("a0", new TestNode("a00"), new TestNode("a01")), new TestNode("a1"));
+        mA0 = mA.mChildren.get(0);
+        mB = new TestNode("b", new TestNode("b0"));
+        mAdapter.mRoots.addAll(Arrays.asList(mA, mB, new TestNode("c")));
+        mRows = new RowList(mAdapter);
+    }
+
+    @Test
+    public void expandNodeAt_insertsVisibleDescendants() throws Exception {
+        assertTrue(mAdapter.expandNodeAt(0));
+        assertRows("a", "a0", "a1", "b", "c");
+        assertEquals(1, mAdapter.getNodeDepth(1));
+        assertTrue(mAdapter.expandNodeAt(1));
+        assertRows("a", "a0", "a00", "a01", "a1", "b", "c");
+        assertEquals(2, mAdapter.getNodeDepth(2));
+        assertFalse(mAdapter.expandNodeAt(1));
+        assertFalse(mAdapter.expandNodeAt(2));
+    }
+
+    @Test
+    public void foldNodeAt_removesVisibleDescendantsAndKeepsTheirStatus() throws Exception {
+        mAdapter.expandNodeAt(0);
+        mAdapter.expandNodeAt(1);
+        assertTrue(mAdapter.foldNodeAt(0));
+        assertRows("a", "b", "c");
+        assertTrue(mAdapter.isNodeExpanding(mA0));
+        // the expanding descendant is shown again with its children
+        mAdapter.expandNodeAt(0);
+        assertRows("a", "a0", "a00", "a01", "a1", "b", "c");
+    }
+
+    @Test
+    public void expandNode_underFoldedAncestorIsShownLater() throws Exception {
+        assertTrue(mAdapter.expandNode(mA0));
+        assertRows("a", "b", "c");
+        mAdapter.expandNode(mA);
+        assertRows("a", "a0", "a00", "a01", "a1", "b", "c");
+    }
+
+    @Test
+    public void getNodePosition_followsSplices() throws Exception {
+        final TestNode c = mAdapter.mRoots.get(2);
+        assertEquals(2, mAdapter.getNodePosition(c));
+        assertEquals(-1, mAdapter.getNodePosition(mA0));
+        mAdapter.expandNode(mA);
+        assertEquals(1, mAdapter.getNodePosition(mA0));
+        assertEquals(4, mAdapter.getNodePosition(c));
+        mAdapter.expandNode(mB);
+        assertEquals(5, mAdapter.getNodePosition(c));
+        mAdapter.foldNode(mA);
+        assertEquals(-1, mAdapter.getNodePosition(mA0));
+        assertEquals(1, mAdapter.getNodePosition(mB));
+        assertEquals(3, mAdapter.getNodePosition(c));
+    }
+
+    @Test
+    public void notifyDataSetChanged_rebuildsVisibleNodes() throws Exception {
+        mAdapter.expandNode(mA);
+        final TestNode d = new TestNode("d");
+        mAdapter.mRoots.add(0, d);
+        mAdapter.notifyDataSetChanged();
+        assertRows("d", "a", "a0", "a1", "b", "c");
+        assertEquals(0, mAdapter.getNodePosition(d));
+        assertEquals(2, mAdapter.getNodePosition(mA0));
+    }
+
+    private void assertRows(String... names) {
+        assertEquals(Arrays.asList(names), mRows.mNames);
+        assertEquals(Arrays.asList(names), visibleNames(mAdapter));
+    }
+
+    private static List<String> visibleNames(TestAdapter adapter) {
+        final List<String> result = new ArrayList<>();
+        for (int i = 0; i < adapter.getItemCount(); i++) {
+            result.add(adapter.getNodeItem(i).mName);
+        }
+        return result;
+    }
+
+    /**
+     * replays notifications on row names , as RecyclerView does
+     */
+    static final class RowList extends RecyclerView.AdapterDataObserver {
+        private final TestAdapter mAdapter;
+        final List<String> mNames;
+
+        RowList(TestAdapter adapter) {
+            mAdapter = adapter;
+            mNames = visibleNames(adapter);
+            adapter.registerAdapterDataObserver(this);
+        }
+
+        @Override
+        public void onChanged() {
+            mNames.clear();
+            mNames.addAll(visibleNames(mAdapter));
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            for (int i = 0; i < itemCount; i++) {
+                mNames.add(positionStart + i, mAdapter.getNodeItem(positionStart + i).mName);
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mNames.subList(positionStart, positionStart + itemCount).clear();
+        }
+    }
+
+    static final class TestNode implements BaseTreeRecyclerViewAdapter.BaseTreeNode<TestNode> {
+        final String mName;
+        final List<TestNode> mChildren;
+
+        TestNode(String name, TestNode... children) {
+            mName = name;
+            mChildren = Arrays.asList(children);
+        }
+
+        @Override
+        public int getChildCount() {
+            return mChildren.size();
+        }
+
+        @Override
+        public TestNode getChildAt(int childIndex) {
+            return mChildren.get(childIndex);
+        }
+
+        @Override
+        public boolean isExpandable() {
+            return !mChildren.isEmpty();
+        }
+    }
+
+    static final class TestNodeViewHolder extends BaseTreeRecyclerViewAdapter.BaseNodeViewHolder {
+        TestNodeViewHolder(View itemView) {
+            super(itemView);
+        }
+
+        @Override
+        protected void onExpandStatusChanged(RecyclerView.Adapter<?> relatedAdapter, boolean isExpanding) {
+        }
+    }
+
+    static final class TestAdapter extends BaseTreeRecyclerViewAdapter<TestNode, TestNodeViewHolder> {
+        final List<TestNode> mRoots = new ArrayList<>();
+
+        @Override
+        public int getRootCount() {
+            return mRoots.size();
+        }
+
+        @Override
+        public TestNode getRootItem(int rootIndex) {
+            return mRoots.get(rootIndex);
+        }
+
+        @Override
+        public TestNodeViewHolder onCreateNodeViewHolder(ViewGroup parent, int nodeViewType) {
+            return new TestNodeViewHolder(new View(parent.getContext()));
+        }
+
+        @Override
+        public void onBindNodeViewHolder(TestNodeViewHolder holder, TestNode node, int depth, boolean isExpand) {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.hgdendi.expandablerecycleradapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * local unit test of {@link ChildOrder} , moves are replayed on a list to check the final order
+ */
+public class ChildOrderTest {
+
+    private static final Comparator<String> FIRST_CHAR = new Comparator<String>() {
+        @Override
+        public int compare(String o1, String o2) {
+            return o1.charAt(0) - o2.charAt(0);
+        }
+    };
+
+    @Test
+    public void sortIndexes_isStable() throws Exception {
+        final List<String> children = Arrays.asList("b1", "a1", "c1", "a2", "b2", "a3");
+        assertArrayEquals(new int[]{1, 3, 5, 0, 4, 2}, ChildOrder.sortIndexes(children, FIRST_CHAR));
+    }
+
+    @Test
+    public void sortIndexes_emptyAndSingle() throws Exception {
+        assertArrayEquals(new int[0], ChildOrder.sortIndexes(Collections.<String>emptyList(), FIRST_CHAR));
+        assertArrayEquals(new int[]{0}, ChildOrder.sortIndexes(Collections.singletonList("a"), FIRST_CHAR));
+    }
+
+    @Test
+    public void computeMoves_sortedOrderNeedsNoMove() throws Exception {
+        assertArrayEquals(new int[0], ChildOrder.computeMoves(new int[]{0, 1, 2, 3}, 0));
+        assertArrayEquals(new int[0], ChildOrder.computeMoves(new int[0], 0));
+    }
+
+    @Test
+    public void computeMoves_singleMove() throws Exception {
+        // the last child is moved to the front
+        assertArrayEquals(new int[]{3, 0}, ChildOrder.computeMoves(new int[]{3, 0, 1, 2}, 1));
+        // the first child is moved to the end
+        assertArrayEquals(new int[]{0, 3}, ChildOrder.computeMoves(new int[]{1, 2, 3, 0}, 1));
+    }
+
+    @Test
+    public void computeMoves_reversedOrder() throws Exception {
+        final int[] order = {4, 3, 2, 1, 0};
+        final int[] moves = ChildOrder.computeMoves(order, 4);
+        assertNotNull(moves);
+        assertEquals(8, moves.length);
+        assertEquals(toList(order), replay(order.length, moves));
+    }
+
+    @Test
+    public void computeMoves_nullAboveMaxMoveCount() throws Exception {
+        assertNull(ChildOrder.computeMoves(new int[]{4, 3, 2, 1, 0}, 3));
+    }
+
+    @Test
+    public void computeMoves_randomOrdersReplayToOrder() throws Exception {
+        final Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            final int count = random.nextInt(30);
+            final List<Integer> shuffled = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                shuffled.add(i);
+            }
+            Collections.shuffle(shuffled, random);
+            final int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = shuffled.get(i);
+            }
+            final int[] moves = ChildOrder.computeMoves(order, count);
+            assertNotNull(moves);
+            // each child outside the longest increasing subsequence is moved once
+            assertEquals(2 * (count - longestIncreasingLength(order)), moves.length);
+            assertEquals(shuffled, replay(count, moves));
+        }
+    }
+
+    @Test
+    public void computeRowMoves_blocksMoveWithAllRows() throws Exception {
+        // block 2 of 3 rows is moved up to the front , block 0 of 2 rows is moved down to the end
+        final int[] rowCounts = {2, 1, 3};
+        assertEquals(Arrays.asList(3, 4, 5, 2, 0, 1), replay(6, ChildOrder.computeRowMoves(rowCounts, new int[]{2, 0, 1, 2}, 6)));
+        assertNull(ChildOrder.computeRowMoves(rowCounts, new int[]{2, 0, 1, 2}, 4));
+        assertNull(ChildOrder.computeRowMoves(rowCounts, null, 6));
+    }
+
+    @Test
+    public void computeRowMoves_randomOrdersReplayToOrder() throws Exception {
+        final Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            final int count = random.nextInt(20);
+            final List<Integer> shuffled = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                shuffled.add(i);
+            }
+            Collections.shuffle(shuffled, random);
+            final int[] order = new int[count];
+            final int[] rowCounts = new int[count];
+            final int[] rowStarts = new int[count];
+            int rowCount = 0;
+            for (int i = 0; i < count; i++) {
+                order[i] = shuffled.get(i);
+                rowCounts[i] = 1 + random.nextInt(4);
+                rowStarts[i] = rowCount;
+                rowCount += rowCounts[i];
+            }
+            final List<Integer> expected = new ArrayList<>(rowCount);
+            for (int block : order) {
+                for (int i = 0; i < rowCounts[block]; i++) {
+                    expected.add(rowStarts[block] + i);
+                }
+            }
+            final int[] rowMoves = ChildOrder.computeRowMoves(rowCounts, ChildOrder.computeMoves(order, count), rowCount);
+            assertNotNull(rowMoves);
+            assertEquals(expected, replay(rowCount, rowMoves));
+        }
+    }
+
+    /**
+     * @return children 0 ~ count-1 after notifying moves in sequence
+     */
+    private static List<Integer> replay(int count, int[] moves) {
+        final List<Integer> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(i);
+        }
+        for (int i = 0; i < moves.length; i += 2) {
+            result.add(moves[i + 1], result.remove(moves[i]));
+        }
+        return result;
+    }
+
+    private static List<Integer> toList(int[] array) {
+        final List<Integer> result = new ArrayList<>(array.length);
+        for (int value : array) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    private static int longestIncreasingLength(int[] array) {
+        final int[] lengths = new int[array.length];
+        int result = 0;
+        for (int i = 0; i < array.length; i++) {
+            lengths[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (array[j] < array[i]) {
+                    lengths[i] = Math.max(lengths[i], lengths[j] + 1);
+                }
+            }
+            result = Math.max(result, lengths[i]);
+        }
+        return result;
+    }
+}
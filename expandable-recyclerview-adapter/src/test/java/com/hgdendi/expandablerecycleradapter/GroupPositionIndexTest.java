@@ -0,0 +1,203 @@
+package com.hgdendi.expandablerecycleradapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * local unit test of {@link GroupPositionIndex} , checked against a plain list of item counts
+ */
+public class GroupPositionIndexTest {
+
+    @Test
+    public void reset_allGroupsFolded() throws Exception {
+        final GroupPositionIndex index = new GroupPositionIndex();
+        index.reset(5);
+        assertEquals(5, index.size());
+        assertEquals(5, index.total());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(1, index.get(i));
+            assertEquals(i, index.positionOf(i));
+            assertEquals(i, index.groupAt(i));
+        }
+    }
+
+    @Test
+    public void set_shiftsFollowingPositions() throws Exception {
+        final GroupPositionIndex index = new GroupPositionIndex();
+        index.reset(4);
+        index.set(1, 3);
+        assertEquals(6, index.total());
+        assertEquals(0, index.positionOf(0));
+        assertEquals(1, index.positionOf(1));
+        assertEquals(4, index.positionOf(2));
+        assertEquals(5, index.positionOf(3));
+        assertEquals(1, index.groupAt(1));
+        assertEquals(1, index.groupAt(3));
+        assertEquals(2, index.groupAt(4));
+    }
+
+    @Test
+    public void insert_insertsFoldedGroups() throws Exception {
+        final GroupPositionIndex index = new GroupPositionIndex();
+        index.reset(3);
+        index.set(0, 2);
+        index.set(2, 4);
+        index.insert(1, 2);
+        assertEquals(5, index.size());
+        assertEquals(9, index.total());
+        assertEquals(2, index.get(0));
+        assertEquals(1, index.get(1));
+        assertEquals(1, index.get(2));
+        assertEquals(1, index.get(3));
+        assertEquals(4, index.get(4));
+        assertEquals(5, index.positionOf(4));
+        assertEquals(4, index.groupAt(8));
+    }
+
+    @Test
+    public void insert_growsBeyondInitialCapacity() throws Exception {
+        final GroupPositionIndex index = new GroupPositionIndex();
+        index.reset(0);
+        for (int i = 0; i < 100; i++) {
+            index.insert(i, 1);
+        }
+        assertEquals(100, index.size());
+        assertEquals(100, index.total());
+        assertEquals(99, index.groupAt(99));
+    }
+
+    @Test
+    public void remove_dropsItemCountOfRemovedGroups() throws Exception {
+        final GroupPositionIndex index = new GroupPositionIndex();
+        index.reset(5);
+        index.set(1, 3);
+        index.set(2, 2);
+        index.set(4, 5);
+        index.remove(1, 2);
+        assertEquals(3, index.size());
+        assertEquals(7, index.total());
+        assertEquals(1, index.positionOf(1));
+        assertEquals(2, index.positionOf(2));
+        assertEquals(2, index.groupAt(6));
+    }
+
+    @Test
+    public void groupAt_outOfRange() throws Exception {
+        final GroupPositionIndex index = new GroupPositionIndex();
+        index.reset(3);
+        assertEquals(3, index.groupAt(3));
+    }
+
+    @Test
+    public void groupAt_hintFollowsScrolling() throws Exception {
+        final GroupPositionIndex index = new GroupPositionIndex();
+        index.reset(50);
+        for (int i = 0; i < 50; i += 3) {
+            index.set(i, 4);
+        }
+        final List<Integer> values = valuesOf(index);
+        // sequential lookups in both directions walk from the hint
+        for (int position = 0; position < index.total(); position++) {
+            assertEquals(groupAt(values, position), index.groupAt(position));
+        }
+        for (int position = index.total() - 1; position >= 0; position--) {
+            assertEquals(groupAt(values, position), index.groupAt(position));
+        }
+        // jumps beyond the hint fall back to the tree
+        assertEquals(groupAt(values, 0), index.groupAt(0));
+        assertEquals(groupAt(values, index.total() - 1), index.groupAt(index.total() - 1));
+    }
+
+    @Test
+    public void groupAt_hintInvalidatedByChanges() throws Exception {
+        final GroupPositionIndex index = new GroupPositionIndex();
+        index.reset(10);
+        assertEquals(5, index.groupAt(5));
+        index.set(2, 3);
+        assertEquals(6, index.positionOf(4));
+        assertEquals(3, index.groupAt(5));
+        assertEquals(3, index.groupAt(5));
+        index.insert(0, 1);
+        assertEquals(3, index.groupAt(5));
+        assertEquals(4, index.groupAt(6));
+        index.remove(0, 2);
+        assertEquals(8, index.positionOf(6));
+        assertEquals(5, index.groupAt(7));
+    }
+
+    @Test
+    public void randomOperations_matchPlainList() throws Exception {
+        final Random random = new Random(42);
+        final GroupPositionIndex index = new GroupPositionIndex();
+        final List<Integer> values = new ArrayList<>();
+        index.reset(20);
+        for (int i = 0; i < 20; i++) {
+            values.add(1);
+        }
+        for (int round = 0; round < 2000; round++) {
+            final int operation = random.nextInt(4);
+            if (operation == 0) {
+                final int groupIndex = random.nextInt(values.size() + 1);
+                final int count = 1 + random.nextInt(3);
+                index.insert(groupIndex, count);
+                for (int i = 0; i < count; i++) {
+                    values.add(groupIndex, 1);
+                }
+            } else if (operation == 1 && values.size() > 3) {
+                final int groupIndex = random.nextInt(values.size() - 2);
+                index.remove(groupIndex, 2);
+                values.remove(groupIndex);
+                values.remove(groupIndex);
+            } else if (!values.isEmpty()) {
+                final int groupIndex = random.nextInt(values.size());
+                final int itemCount = 1 + random.nextInt(6);
+                index.set(groupIndex, itemCount);
+                values.set(groupIndex, itemCount);
+            }
+            assertEquals(values, valuesOf(index));
+            int total = 0;
+            for (int value : values) {
+                total += value;
+            }
+            assertEquals(total, index.total());
+            if (total > 0) {
+                final int position = random.nextInt(total);
+                final int groupIndex = groupAt(values, position);
+                assertEquals(groupIndex, index.groupAt(position));
+                assertEquals(positionOf(values, groupIndex), index.positionOf(groupIndex));
+            }
+        }
+    }
+
+    private static List<Integer> valuesOf(GroupPositionIndex index) {
+        final List<Integer> result = new ArrayList<>(index.size());
+        for (int i = 0; i < index.size(); i++) {
+            result.add(index.get(i));
+        }
+        return result;
+    }
+
+    private static int positionOf(List<Integer> values, int groupIndex) {
+        int result = 0;
+        for (int i = 0; i < groupIndex; i++) {
+            result += values.get(i);
+        }
+        return result;
+    }
+
+    private static int groupAt(List<Integer> values, int position) {
+        int remain = position;
+        for (int i = 0; i < values.size(); i++) {
+            remain -= values.get(i);
+            if (remain < 0) {
+                return i;
+            }
+        }
+        return values.size();
+    }
+}
@@ -0,0 +1,135 @@
+package com.hgdendi.expandablerecycleradapter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * local unit test of {@link LongHashSet} , checked against {@link HashSet}
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void zeroKey_isKeptApartFromEmptySlots() throws Exception {
+        final LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.size());
+        assertArrayEquals(new long[]{0L}, set.toArray());
+        assertTrue(set.remove(0L));
+        assertFalse(set.remove(0L));
+        assertFalse(set.contains(0L));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void remove_missingKey() throws Exception {
+        final LongHashSet set = new LongHashSet();
+        set.add(1L);
+        assertFalse(set.remove(2L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void remove_keepsFollowingKeysOfClusterReachable() throws Exception {
+        // without rehashing , 3 of 8 slots are taken , so removals in every order shift keys back within clusters
+        final long[] keys = {1L, 2L, 3L, 9L, 17L, 25L, -1L, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (int i = 0; i < keys.length; i++) {
+            for (int j = 0; j < keys.length; j++) {
+                for (int k = 0; k < keys.length; k++) {
+                    if (i == j || j == k || i == k) {
+                        continue;
+                    }
+                    final LongHashSet set = new LongHashSet();
+                    set.add(keys[i]);
+                    set.add(keys[j]);
+                    set.add(keys[k]);
+                    assertTrue(set.remove(keys[i]));
+                    assertFalse(set.contains(keys[i]));
+                    assertTrue(set.contains(keys[j]));
+                    assertTrue(set.contains(keys[k]));
+                    assertTrue(set.remove(keys[j]));
+                    assertTrue(set.contains(keys[k]));
+                    assertEquals(1, set.size());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void add_rehashesAndKeepsAllKeys() throws Exception {
+        final LongHashSet set = new LongHashSet();
+        for (long key = 0; key < 1000; key++) {
+            assertTrue(set.add(key << 32));
+        }
+        assertEquals(1000, set.size());
+        for (long key = 0; key < 1000; key++) {
+            assertTrue(set.contains(key << 32));
+            assertFalse(set.contains((key << 32) + 1));
+        }
+        final long[] keys = set.toArray();
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals((long) i << 32, keys[i]);
+        }
+    }
+
+    @Test
+    public void copy_isIndependent() throws Exception {
+        final LongHashSet set = new LongHashSet();
+        set.add(0L);
+        set.add(5L);
+        final LongHashSet copy = new LongHashSet(set);
+        copy.remove(5L);
+        copy.add(6L);
+        assertTrue(set.contains(5L));
+        assertFalse(set.contains(6L));
+        assertTrue(copy.contains(0L));
+        assertEquals(2, copy.size());
+    }
+
+    @Test
+    public void clear_removesAllKeys() throws Exception {
+        final LongHashSet set = new LongHashSet();
+        for (long key = -10; key < 10; key++) {
+            set.add(key);
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        for (long key = -10; key < 10; key++) {
+            assertFalse(set.contains(key));
+        }
+    }
+
+    @Test
+    public void randomOperations_matchHashSet() throws Exception {
+        final Random random = new Random(42);
+        final LongHashSet set = new LongHashSet();
+        final Set<Long> expected = new HashSet<>();
+        for (int round = 0; round < 20000; round++) {
+            // small key space , so that removals hit long clusters
+            final long key = random.nextInt(64) - 8;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+            assertEquals(expected.size(), set.size());
+            final long probe = random.nextInt(64) - 8;
+            assertEquals(expected.contains(probe), set.contains(probe));
+        }
+        for (long key : set.toArray()) {
+            assertTrue(expected.contains(key));
+        }
+    }
+}
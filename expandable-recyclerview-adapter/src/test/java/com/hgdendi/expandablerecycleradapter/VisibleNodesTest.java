@@ -0,0 +1,122 @@
+package com.hgdendi.expandablerecycleradapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * local unit test of {@link VisibleNodes} , checked against a plain list of nodes
+ */
+public class VisibleNodesTest {
+
+    @Test
+    public void insert_splicesNodesWithDepth() throws Exception {
+        final VisibleNodes<String> nodes = of("a", "b", "c");
+        final VisibleNodes<String> descendants = of("a0", "a1");
+        nodes.insert(1, descendants);
+        assertNodes(nodes, "a", "a0", "a1", "b", "c");
+        assertEquals(0, nodes.depthAt(0));
+        assertEquals(1, nodes.depthAt(1));
+        assertEquals(1, nodes.depthAt(2));
+        assertEquals(0, nodes.depthAt(3));
+    }
+
+    @Test
+    public void remove_splicesNodesWithDepth() throws Exception {
+        final VisibleNodes<String> nodes = of("a", "a0", "a1", "b");
+        nodes.remove(1, 2);
+        assertNodes(nodes, "a", "b");
+        assertEquals(0, nodes.depthAt(1));
+    }
+
+    @Test
+    public void indexOf_refreshesShiftedPositionsAfterSplice() throws Exception {
+        final VisibleNodes<String> nodes = of("a", "b", "c", "d");
+        final String c = nodes.get(2);
+        assertEquals(2, nodes.indexOf(c));
+        // positions before the splice are kept , the shifted ones are refreshed
+        nodes.insert(1, of("a0", "a1"));
+        assertEquals(0, nodes.indexOf(nodes.get(0)));
+        assertEquals(4, nodes.indexOf(c));
+        nodes.remove(1, 2);
+        assertEquals(2, nodes.indexOf(c));
+        assertEquals(-1, nodes.indexOf("missing"));
+    }
+
+    @Test
+    public void indexOf_matchesByIdentity() throws Exception {
+        final VisibleNodes<String> nodes = of("a", "b");
+        assertEquals(-1, nodes.indexOf(new String("a")));
+        assertEquals(0, nodes.indexOf(nodes.get(0)));
+    }
+
+    @Test
+    public void clear_dropsPositions() throws Exception {
+        final VisibleNodes<String> nodes = of("a", "b");
+        final String b = nodes.get(1);
+        assertEquals(1, nodes.indexOf(b));
+        nodes.clear();
+        assertEquals(-1, nodes.indexOf(b));
+        nodes.add(b, 0);
+        assertEquals(0, nodes.indexOf(b));
+        nodes.add("c", 0);
+        assertEquals(1, nodes.indexOf(nodes.get(1)));
+    }
+
+    @Test
+    public void randomSplices_matchList() throws Exception {
+        final Random random = new Random(42);
+        final VisibleNodes<String> nodes = new VisibleNodes<>();
+        final List<String> expected = new ArrayList<>();
+        int nextName = 0;
+        for (int round = 0; round < 2000; round++) {
+            final int position = random.nextInt(expected.size() + 1);
+            if (random.nextBoolean() || expected.isEmpty()) {
+                final VisibleNodes<String> inserted = new VisibleNodes<>();
+                final int count = random.nextInt(4);
+                for (int i = 0; i < count; i++) {
+                    final String node = "n" + nextName++;
+                    inserted.add(node, 1);
+                    expected.add(position + i, node);
+                }
+                nodes.insert(position, inserted);
+            } else {
+                final int count = random.nextInt(expected.size() - position + 1);
+                expected.subList(position, position + count).clear();
+                nodes.remove(position, count);
+            }
+            assertEquals(expected.size(), nodes.size());
+            // look up a few nodes , so that the splices interleave with a partly valid position map
+            for (int i = 0; i < 3 && !expected.isEmpty(); i++) {
+                final int index = random.nextInt(expected.size());
+                assertEquals(index, nodes.indexOf(expected.get(index)));
+            }
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), nodes.get(i));
+            assertEquals(i, nodes.indexOf(expected.get(i)));
+        }
+    }
+
+    /**
+     * @return nodes of depth 0 , or 1 for names with a child index
+     */
+    private static VisibleNodes<String> of(String... names) {
+        final VisibleNodes<String> result = new VisibleNodes<>();
+        for (String name : names) {
+            result.add(name, name.length() > 1 ? 1 : 0);
+        }
+        return result;
+    }
+
+    private static void assertNodes(VisibleNodes<String> nodes, String... expected) {
+        assertEquals(expected.length, nodes.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], nodes.get(i));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.hgdendi.expandablerecyclerview;
 
+import android.support.annotation.NonNull;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -30,6 +31,16 @@ public class SampleAdapter extends
         return mList.get(position);
     }
 
+    @Override
+    protected void onApplyGroups(@NonNull List<SampleGroupBean> groups) {
+        mList = groups;
+    }
+
+    @Override
+    protected void onApplyGroupChildren(@NonNull SampleGroupBean groupBean, @NonNull List<SampleChildBean> children) {
+        groupBean.setChildren(children);
+    }
+
     @Override
     public GroupVH onCreateGroupViewHolder(ViewGroup parent, int groupViewType) {
         return new GroupVH(
@@ -71,7 +82,7 @@ public class SampleAdapter extends
         }
 
         @Override
-        protected void onExpandStatusChanged(RecyclerView.Adapter relatedAdapter, boolean isExpanding) {
+        protected void onExpandStatusChanged(RecyclerView.Adapter<?> relatedAdapter, boolean isExpanding) {
             foldIv.setImageResource(isExpanding ? R.drawable.ic_arrow_expanding : R.drawable.ic_arrow_folding);
         }
     }
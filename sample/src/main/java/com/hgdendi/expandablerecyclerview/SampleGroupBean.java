@@ -26,6 +26,10 @@ class SampleGroupBean implements BaseExpandableRecyclerViewAdapter.BaseGroupBean
         return getChildCount() > 0;
     }
 
+    void setChildren(@NonNull List<SampleChildBean> list) {
+        mList = list;
+    }
+
     public String getName() {
         return mName;
     }